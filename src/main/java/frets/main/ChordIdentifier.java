@@ -0,0 +1,272 @@
+package frets.main;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Names the chord of a voicing, the reverse of {@link Fretboard#getVariations}.
+ * <p>
+ * Each formula is reduced to a 12 bit {@link PitchClassSet}, bit 0 for the root, and rotated
+ * through all 12 roots. A table of all 4096 sets is built once: each set holds the
+ * (root, formula) pairs that play exactly those pitch classes, or if there are none,
+ * the nearest pairs by missing plus extra pitch classes, for partial or extended voicings.
+ * Nearest pairs must contain their root and be within {@link MAX_DISTANCE}.
+ * <p>
+ * A voicing is reduced to its set in one pass over its locations, so identifying it is
+ * one table lookup. Pitch classes count from A, as {@link Note#getValue}.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class ChordIdentifier {
+	public static final int PITCH_CLASSES = PitchClassSet.PITCH_CLASSES;
+	public static final int SET_COUNT = PitchClassSet.SET_COUNT;
+	public static final int ALL_PITCH_CLASSES = PitchClassSet.ALL_BITS;
+	/** Nearest matches may differ from the voicing by at most this many pitch classes. */
+	public static final int MAX_DISTANCE = 2;
+	public static final int NO_BASS = -1;
+	public static final String SCALE_PROPS = "src/main/resources/frets/main/scale.properties";
+
+	/** Builds the table for the formulas. Earlier formulas are listed first among equal matches. */
+	public ChordIdentifier( final List<Formula> formulas ) {
+		List<Match> all = new LinkedList<Match>();
+		int order = 0;
+		for ( Formula formula : formulas ) {
+			int set = getSet( formula );
+			if ( 0 != set ) {
+				for ( int root = 0; root < PITCH_CLASSES; root++ )
+					all.add( new Match( root, formula, PitchClassSet.rotate( set, root ), order ));
+			}
+			order++;
+		}
+		Match [] candidates = all.toArray( new Match[ all.size() ] );
+		matches = new Match[ SET_COUNT ][];
+		matches[ 0 ] = new Match[ 0 ];
+		for ( int set = 1; set < SET_COUNT; set++ )
+			matches[ set ] = getMatches( candidates, set );
+		formulaCount = formulas.size();
+	}
+
+	/** Returns an identifier of the chord and scale formulas, built on first use. */
+	public static synchronized ChordIdentifier getInstance() {
+		if ( null == instance ) {
+			List<Formula> formulas = new LinkedList<Formula>();
+			try {
+				formulas.addAll( FormulaList.getFormulas( VoicingDatabase.CHORD_PROPS ));
+				formulas.addAll( FormulaList.getFormulas( SCALE_PROPS ));
+			} catch ( IOException e ) {
+				System.out.println( e );
+			}
+			instance = new ChordIdentifier( formulas );
+		}
+		return instance;
+	}
+
+	/** Returns the pitch class set of the formula from root 0, or 0 if it does not parse. See {@link PitchClassSet#fromFormula}. */
+	public static int getSet( final Formula formula ) {
+		if (( null == formula ) || ( null == formula.getFormula() ))
+			return 0;
+		try {
+			return PitchClassSet.fromFormula( formula.getFormula() ).getBits();
+		} catch ( IllegalArgumentException e ) {
+			return 0;
+		}
+	}
+
+	/** Returns the pitch class set played by the locations on the fretboard. Locations off the fretboard are ignored. */
+	public static int getSet( final Fretboard fretboard, final LocationList locations ) {
+		FretboardIndex index = fretboard.getIndex();
+		int set = 0;
+		for ( Location location : locations ) {
+			int pitch = index.getPitch( location.getString(), location.getFret() );
+			if ( FretboardIndex.NO_PITCH != pitch )
+				set |= 1 << PitchClassSet.getPitchClass( pitch );
+		}
+		return set;
+	}
+
+	/** Returns the pitch class of the lowest pitch played by the locations, or NO_BASS if none are on the fretboard. */
+	public static int getBass( final Fretboard fretboard, final LocationList locations ) {
+		FretboardIndex index = fretboard.getIndex();
+		int lowest = Integer.MAX_VALUE;
+		for ( Location location : locations ) {
+			int pitch = index.getPitch( location.getString(), location.getFret() );
+			if (( FretboardIndex.NO_PITCH != pitch ) && ( pitch < lowest ))
+				lowest = pitch;
+		}
+		return ( Integer.MAX_VALUE == lowest ) ? NO_BASS : PitchClassSet.getPitchClass( lowest );
+	}
+
+	/** Returns the matches of the voicing, best first. Matches rooted on the bass come first among equals.
+	 * Returns an empty list if no formula is within MAX_DISTANCE.
+	 */
+	public List<Match> identify( final Fretboard fretboard, final LocationList locations ) {
+		return identify( getSet( fretboard, locations ), getBass( fretboard, locations ));
+	}
+
+	/** Returns the matches of the pitch class set, best first. Matches rooted on the bass come first among equals. */
+	public List<Match> identify( int set, final int bass ) {
+		Match [] sorted = matches[ set & ALL_PITCH_CLASSES ].clone();
+		Arrays.sort( sorted, new Comparator<Match>() {
+			public int compare( Match o1, Match o2 ) {
+				if ( o1.getDistance() != o2.getDistance() )
+					return o1.getDistance() - o2.getDistance();
+				return ( o1.root == bass ? 0 : 1 ) - ( o2.root == bass ? 0 : 1 );
+			}
+		});
+		return new LinkedList<Match>( Arrays.asList( sorted ));
+	}
+
+	/** Returns the matches of the pitch class set, best first. */
+	public List<Match> identify( final PitchClassSet set, int bass ) {
+		return identify( set.getBits(), bass );
+	}
+
+	/** Returns the best match of the voicing, or null if none. */
+	public Match getBest( final Fretboard fretboard, final LocationList locations ) {
+		return getBest( getSet( fretboard, locations ), getBass( fretboard, locations ));
+	}
+
+	/** Returns the best match of the pitch class set, preferring the bass as root, or null if none. Does not allocate. */
+	public Match getBest( int set, int bass ) {
+		Match [] candidates = matches[ set & ALL_PITCH_CLASSES ];
+		if ( 0 == candidates.length )
+			return null;
+		for ( Match match : candidates ) {
+			if ( match.getDistance() > candidates[ 0 ].getDistance() )
+				break;
+			if ( match.root == bass )
+				return match;
+		}
+		return candidates[ 0 ];
+	}
+
+	/** Returns true if some formula plays exactly this pitch class set. */
+	public boolean isExact( int set ) {
+		Match [] candidates = matches[ set & ALL_PITCH_CLASSES ];
+		return ( candidates.length > 0 ) && ( 0 == candidates[ 0 ].getDistance() );
+	}
+
+	public int getFormulaCount() {
+		return formulaCount;
+	}
+
+	/** Returns the exact matches of the set, or the nearest that contain their root, in distance then formula order. */
+	protected static Match [] getMatches( final Match [] candidates, int set ) {
+		int best = Integer.MAX_VALUE;
+		for ( Match candidate : candidates ) {
+			if ( 0 != ( set & ( 1 << candidate.root ))) {
+				int distance = Integer.bitCount( set ^ candidate.set );
+				if ( distance < best )
+					best = distance;
+			}
+		}
+		if ( best > MAX_DISTANCE )
+			return new Match[ 0 ];
+		List<Match> nearest = new LinkedList<Match>();
+		for ( Match candidate : candidates ) {
+			if (( 0 != ( set & ( 1 << candidate.root ))) && ( Integer.bitCount( set ^ candidate.set ) == best ))
+				nearest.add( candidate.getInstance( set ));
+		}
+		Match [] sorted = nearest.toArray( new Match[ nearest.size() ] );
+		Arrays.sort( sorted );
+		return sorted;
+	}
+
+	/** A root and formula, and how far its pitch classes are from a voicing. */
+	public static class Match implements Comparable<Match> {
+		protected Match( int root, final Formula formula, int set, int order ) {
+			this( root, formula, set, order, 0, 0 );
+		}
+
+		protected Match( int root, final Formula formula, int set, int order, int missing, int extra ) {
+			this.root = root;
+			this.formula = formula;
+			this.set = set;
+			this.order = order;
+			this.missing = missing;
+			this.extra = extra;
+		}
+
+		/** Returns this match measured against the voicing set. */
+		protected Match getInstance( int voicing ) {
+			return new Match( root, formula, set, order, Integer.bitCount( set & ~voicing ), Integer.bitCount( voicing & ~set ));
+		}
+
+		/** Returns the root pitch class, 0..11 from A. */
+		public int getRootValue() {
+			return root;
+		}
+
+		public Note getRoot() {
+			return new Note( root );
+		}
+
+		public Formula getFormula() {
+			return formula;
+		}
+
+		/** Returns the pitch class set bits of the formula on this root. */
+		public int getSet() {
+			return set;
+		}
+
+		public PitchClassSet getPitchClassSet() {
+			return PitchClassSet.valueOf( set );
+		}
+
+		/** Returns the number of formula pitch classes the voicing does not play. */
+		public int getMissing() {
+			return missing;
+		}
+
+		/** Returns the number of voicing pitch classes outside the formula. */
+		public int getExtra() {
+			return extra;
+		}
+
+		public int getDistance() {
+			return missing + extra;
+		}
+
+		public boolean isExact() {
+			return 0 == getDistance();
+		}
+
+		/** Returns the chord name such as "Cmaj7". */
+		public String getName() {
+			return Note.Name.getName( root ).getName() + formula.getName();
+		}
+
+		/** Orders by distance, then fewer extra pitch classes, then formula order, then root. */
+		@Override
+		public int compareTo( Match o ) {
+			if ( getDistance() != o.getDistance() )
+				return getDistance() - o.getDistance();
+			if ( extra != o.extra )
+				return extra - o.extra;
+			if ( order != o.order )
+				return order - o.order;
+			return root - o.root;
+		}
+
+		@Override
+		public String toString() {
+			return getName() + ( isExact() ? "" : "(missing=" + missing + ",extra=" + extra + ")" );
+		}
+
+		protected final int root;
+		protected final Formula formula;
+		protected final int set;
+		protected final int order;
+		protected final int missing;
+		protected final int extra;
+	}
+
+	protected static ChordIdentifier instance;
+
+	protected final Match [][] matches;
+	protected final int formulaCount;
+}
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
 
 import frets.util.FilenameRegExFilter;
 
@@ -32,6 +33,18 @@ import frets.util.FilenameRegExFilter;
  *    - same string (number of notes on same string, normally 1, can be 0 or greater)
  *    - composite ( add all above scores)
  * A lower score is more playable with 0 satisfying all constraints.
+ * <p>
+ * Besides LocationList scoring, {@link compositeScore(int[],int,int[],int)} scores a
+ * voicing of packed locations ({@link Location#pack}) into a caller buffer, and
+ * {@link compositeScores(VoicingBlock,int[])} scores a whole {@link VoicingBlock} in one
+ * loop. Neither allocates, and both give the same scores as {@link compositeScore(LocationList)}.
+ * <p>
+ * The scores of a voicing depend only on its {@link getSignature}: the distance of its frets
+ * outside the fret bounds, its fret span, which strings it plays relative to its lowest string,
+ * and how many notes repeat a string. An optional memo, sized with {@link setMemoSize},
+ * keeps the scores of recent signatures for {@link getSum(LocationList)} and
+ * {@link compositeScore(LocationList)}. It is a direct mapped table of immutable entries, so
+ * threads share it without locks. Setting the fret bounds or a penalty clears it.
  * 
  * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
  */
@@ -41,6 +54,15 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 	
 	
 	public final static String STANDARD = "Standard";
+	/** Length of a composite score, the sum and four components. */
+	public final static int SCORE_COUNT = 5;
+	/** Returned by getSignature for a voicing too wide to pack. */
+	public final static long NO_SIGNATURE = -1L;
+	/** Signature fields, low bit first: fret bounds distance, fret span, relative strings played, repeated strings. */
+	protected final static int BOUNDS_BITS = 16;
+	protected final static int SPAN_BITS = 16;
+	protected final static int STRING_BITS = 24;
+	protected final static int REPEAT_BITS = 7;
 	
     public ChordRank() {
     }
@@ -82,6 +104,7 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 
 	public void setMinFret(int minFret) {
 		this.minFret = minFret;
+		clearMemo();
 	}
 
 	public int getMaxFret() {
@@ -90,6 +113,7 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 
 	public void setMaxFret(int maxFret) {
 		this.maxFret = maxFret;
+		clearMemo();
 	}
 
 	public int getSkipStringPenalty() {
@@ -98,6 +122,7 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 
 	public void setSkipStringPenalty(int skipStringPenalty) {
 		this.skipStringPenalty = skipStringPenalty;
+		clearMemo();
 	}
 
 	public int getSameStringPenalty() {
@@ -106,6 +131,7 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 
 	public void setSameStringPenalty(int sameStringPenalty) {
 		this.sameStringPenalty = sameStringPenalty;
+		clearMemo();
 	}
 
 	/** Score 0 for fret in bounds, N distance for fret out of bounds. */
@@ -113,15 +139,21 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 		if ((null == locations) || ( locations.size() == 0 )) return 0;
 		int score = 0;
 		for ( Location location : locations ) {
-			int fret = location.getFret();
-			if (fret < minFret)
-			   score += minFret - fret;
-            if ( fret > maxFret )
-               score += fret - maxFret;
+			score += fretBoundsScore( location.getFret() );
 		}
 		return score;
 	}
 	
+	/** Score 0 for a fret in bounds, N distance for a fret out of bounds. */
+	public int fretBoundsScore( int fret ) {
+		int score = 0;
+		if (fret < minFret)
+		   score += minFret - fret;
+		if ( fret > maxFret )
+		   score += fret - maxFret;
+		return score;
+	}
+	
 	/** 
 	 * Fret span 	score
 	 * 0-5			1 * fret span
@@ -129,7 +161,11 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 	 * 11+			4 * fret span
 	 */
 	public int fretSpanScore( final LocationList locations ) {
-		int fretSpan = locations.fretSpan();
+		return fretSpanScore( locations.fretSpan() );
+	}
+	
+	/** Score of the given fret span. See {@link fretSpanScore(LocationList)}. */
+	public int fretSpanScore( int fretSpan ) {
 		if ( fretSpan < 6 ) return fretSpan; 
 		if ( fretSpan < 11) return 2 * fretSpan;
 		return 4 * fretSpan;
@@ -138,18 +174,23 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 	/** Score 0 for no skipped strings, N distance for fret out of bounds. */
 	public int skipStringScore( final LocationList locations ) {
 		if ((null == locations) || ( locations.size() == 0 )) return 0;
-		
-		int score = locations.getSkippedStringCount();
-		score *= skipStringPenalty;
-		return score;
+		return skipStringScore( locations.getShape() );
+	}
+
+	/** Skipped string score of a shape. See {@link skipStringScore(LocationList)}. */
+	public int skipStringScore( final LocationList.Shape shape ) {
+		return shape.getSkippedStringCount() * skipStringPenalty;
 	}
 	
 	/** Score 0 for all notes on different strings, N for each repeat. */ 
 	public int sameStringScore( final LocationList locations ) {
 		if ((null == locations) || ( locations.size() == 0 )) return 0;
-		int score = locations.size() - locations.getStringCount();
-		score *= sameStringPenalty;
-		return score;
+		return sameStringScore( locations.getShape() );
+	}
+
+	/** Same string score of a shape. See {@link sameStringScore(LocationList)}. */
+	public int sameStringScore( final LocationList.Shape shape ) {
+		return shape.getDuplicateStringCount() * sameStringPenalty;
 	}
 
 	/** 
@@ -160,10 +201,14 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 	 * same string score (0..N).
 	 *  Lower is better. */
 	public int getSum( final LocationList locations ) { 
+		int [] memo = getMemo( locations );
+		if ( null != memo )
+			return memo[ 0 ];
+		LocationList.Shape shape = locations.getShape();
 		int component1 = fretBoundsScore( locations );
-		int component2 = fretSpanScore( locations );
-		int component3 = skipStringScore( locations );
-		int component4 = sameStringScore( locations );
+		int component2 = fretSpanScore( shape.fretSpan() );
+		int component3 = skipStringScore( shape );
+		int component4 = sameStringScore( shape );
 		int sum = component1 + component2 + component3 + component4;
 		return sum;
 	}
@@ -181,14 +226,247 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 	 * same string score (0..N).
 	 *  Lower is better. */
 	public int [] compositeScore( final LocationList list ) {
+		int [] memo = getMemo( list );
+		if ( null != memo )
+			return memo.clone();
+		return score( list );
+	}
+
+	/** Scores the list without the memo, from one {@link LocationList#getShape} and one bounds pass. */
+	protected int [] score( final LocationList list ) {
+		LocationList.Shape shape = list.getShape();
 		int component1 = fretBoundsScore( list );
-		int component2 = fretSpanScore( list );
-		int component3 = skipStringScore( list );
-		int component4 = sameStringScore( list );
+		int component2 = fretSpanScore( shape.fretSpan() );
+		int component3 = skipStringScore( shape );
+		int component4 = sameStringScore( shape );
 		int sum = component1 + component2 + component3 + component4;
 		return new int [] { sum, component1, component2, component3, component4 };		
 	}
 
+	/** Returns the signature of the locations under the current fret bounds, or NO_SIGNATURE
+	 * if a field does not fit. Voicings with equal signatures have equal scores.
+	 */
+	public long getSignature( final LocationList locations ) {
+		if (( null == locations ) || ( 0 == locations.size() ))
+			return 0L;
+		int lowFret = Integer.MAX_VALUE;
+		int highFret = Integer.MIN_VALUE;
+		long strings = 0L;
+		int bounds = 0;
+		int length = 0;
+		for ( Location location : locations ) {
+			int fret = location.getFret();
+			int string = location.getString();
+			if (( string < 0 ) || ( string >= LocationList.MASK_STRINGS ))
+				return NO_SIGNATURE;
+			bounds += fretBoundsScore( fret );
+			if ( fret < lowFret ) lowFret = fret;
+			if ( fret > highFret ) highFret = fret;
+			strings |= 1L << string;
+			length++;
+		}
+		return getSignature( bounds, highFret - lowFret, strings, length );
+	}
+
+	/** Packs the signature fields, or returns NO_SIGNATURE if one does not fit. */
+	protected static long getSignature( int bounds, int span, long strings, int length ) {
+		long relative = strings >>> Long.numberOfTrailingZeros( strings );
+		int repeats = length - Long.bitCount( strings );
+		if (( bounds >= ( 1 << BOUNDS_BITS )) || ( span < 0 ) || ( span >= ( 1 << SPAN_BITS )) ||
+			( relative >= ( 1L << STRING_BITS )) || ( repeats >= ( 1 << REPEAT_BITS )))
+			return NO_SIGNATURE;
+		return bounds | ((long) span << BOUNDS_BITS ) | ( relative << ( BOUNDS_BITS + SPAN_BITS )) |
+			((long) repeats << ( BOUNDS_BITS + SPAN_BITS + STRING_BITS ));
+	}
+
+	/** Returns the memo scores of the list, scoring and keeping them on a miss.
+	 * Returns null if the memo is off or the list has no signature. Callers must not change the scores.
+	 */
+	protected int [] getMemo( final LocationList list ) {
+		MemoEntry [] table = memo;
+		if ( null == table )
+			return null;
+		long signature = getSignature( list );
+		if ( NO_SIGNATURE == signature )
+			return null;
+		int slot = (int) ( signature ^ ( signature >>> 29 ) ^ ( signature >>> 43 )) & ( table.length - 1 );
+		MemoEntry entry = table[ slot ];
+		if (( null != entry ) && ( signature == entry.signature )) {
+			memoHits.incrementAndGet();
+			return entry.scores;
+		}
+		memoMisses.incrementAndGet();
+		int [] scores = score( list );
+		table[ slot ] = new MemoEntry( signature, scores );
+		return scores;
+	}
+
+	/** Turns the score memo on with the given number of entries, rounded up to a power of two, or off with 0.
+	 * Clears the memo and its statistics.
+	 */
+	public void setMemoSize( int size ) {
+		if ( size < 0 )
+			throw new IllegalArgumentException( "Memo size " + size + " must not be negative." );
+		int capacity = 0;
+		if ( size > 0 ) {
+			capacity = 1;
+			while ( capacity < size )
+				capacity <<= 1;
+		}
+		memo = ( 0 == capacity ) ? null : new MemoEntry[ capacity ];
+		memoHits.set( 0 );
+		memoMisses.set( 0 );
+	}
+
+	/** Returns the number of memo entries, 0 if the memo is off. */
+	public int getMemoSize() {
+		MemoEntry [] table = memo;
+		return ( null == table ) ? 0 : table.length;
+	}
+
+	/** Drops the memo scores, keeping the memo size and statistics. Called by the setters. */
+	public void clearMemo() {
+		MemoEntry [] table = memo;
+		if ( null != table ) {
+			memo = new MemoEntry[ table.length ];
+			memoClears.incrementAndGet();
+		}
+	}
+
+	public long getMemoHits() {
+		return memoHits.get();
+	}
+
+	public long getMemoMisses() {
+		return memoMisses.get();
+	}
+
+	/** Returns the number of times the memo was cleared by a setter or clearMemo. */
+	public long getMemoClears() {
+		return memoClears.get();
+	}
+
+	/** Returns memo hits over lookups, 0 before any lookup. */
+	public double getMemoHitRate() {
+		long hits = memoHits.get();
+		long lookups = hits + memoMisses.get();
+		return ( 0 == lookups ) ? 0.0 : (double) hits / lookups;
+	}
+
+	/** The scores of one signature. Immutable, so threads may share entries without locks. */
+	protected static final class MemoEntry {
+		protected MemoEntry( long signature, final int [] scores ) {
+			this.signature = signature;
+			this.scores = scores;
+		}
+
+		protected final long signature;
+		protected final int [] scores;
+	}
+
+	/** Returns the sum score of the packed locations, as {@link getSum(LocationList)}. Does not allocate. */
+	public int getSum( final int [] packed, int length ) {
+		return packedScore( packed, length, null, 0 );
+	}
+
+	/** Writes the composite score of the packed locations, as {@link compositeScore(LocationList)},
+	 * into scores from the offset. Returns the sum. Does not allocate.
+	 */
+	public int compositeScore( final int [] packed, int length, final int [] scores, int offset ) {
+		return packedScore( packed, length, scores, offset );
+	}
+
+	/** Writes the composite score of every voicing of the block, component c of voicing v
+	 * at scores[ c * block.size() + v ], as {@link compositeScore(LocationList)}.
+	 * The block holds strings 0 to 63 only, so distinct strings are a bit count. Does not allocate.
+	 */
+	public void compositeScores( final VoicingBlock block, final int [] scores ) {
+		int count = block.size();
+		int width = block.getWidth();
+		int [] strings = block.strings;
+		int [] frets = block.frets;
+		int [] lengths = block.lengths;
+		for ( int v = 0; v < count; v++ ) {
+			int start = v * width;
+			int length = lengths[ v ];
+			int lowFret = Integer.MAX_VALUE;
+			int highFret = Integer.MIN_VALUE;
+			int lowString = Integer.MAX_VALUE;
+			int highString = Integer.MIN_VALUE;
+			long mask = 0L;
+			int bounds = 0;
+			for ( int i = start; i < start + length; i++ ) {
+				int fret = frets[ i ];
+				int string = strings[ i ];
+				bounds += fretBoundsScore( fret );
+				lowFret = Math.min( lowFret, fret );
+				highFret = Math.max( highFret, fret );
+				lowString = Math.min( lowString, string );
+				highString = Math.max( highString, string );
+				mask |= 1L << string;
+			}
+			components( bounds, highFret - lowFret, highString - lowString + 1, Long.bitCount( mask ), length, scores, v, count );
+		}
+	}
+
+	/** Scores the packed locations in one pass. Writes the composite score into scores from the offset
+	 * unless scores is null. Returns the sum.
+	 */
+	protected int packedScore( final int [] packed, int length, final int [] scores, int offset ) {
+		int lowFret = Integer.MAX_VALUE;
+		int highFret = Integer.MIN_VALUE;
+		int lowString = Integer.MAX_VALUE;
+		int highString = Integer.MIN_VALUE;
+		long strings = 0L;
+		int unique = 0;
+		int bounds = 0;
+		for ( int i = 0; i < length; i++ ) {
+			int fret = Location.packedFret( packed[ i ] );
+			int string = Location.packedString( packed[ i ] );
+			bounds += fretBoundsScore( fret );
+			if ( fret < lowFret ) lowFret = fret;
+			if ( fret > highFret ) highFret = fret;
+			if ( string < lowString ) lowString = string;
+			if ( string > highString ) highString = string;
+			if (( string >= 0 ) && ( string < LocationList.MASK_STRINGS )) {
+				if ( 0L == ( strings & ( 1L << string ))) {
+					strings |= 1L << string;
+					unique++;
+				}
+			} else if ( isFirstString( packed, i, string )) {
+				unique++;
+			}
+		}
+		return components( bounds, highFret - lowFret, highString - lowString + 1, unique, length, scores, offset, 1 );
+	}
+
+	/** Combines the summary of one voicing into its components, as {@link compositeScore(LocationList)}.
+	 * Unless scores is null, writes the sum then each component from the offset, stride apart. Returns the sum.
+	 */
+	protected int components( int bounds, int fretSpan, int stringSpan, int unique, int length, final int [] scores, int offset, int stride ) {
+		int span = fretSpanScore( fretSpan );
+		int skip = ( 0 == length ) ? 0 : skipStringPenalty * ( stringSpan - unique );
+		int same = sameStringPenalty * ( length - unique );
+		int sum = bounds + span + skip + same;
+		if ( null != scores ) {
+			scores[ offset ] = sum;
+			scores[ offset + stride ] = bounds;
+			scores[ offset + 2 * stride ] = span;
+			scores[ offset + 3 * stride ] = skip;
+			scores[ offset + 4 * stride ] = same;
+		}
+		return sum;
+	}
+
+	/** Returns true if no packed location before the index is on the string. */
+	protected static boolean isFirstString( final int [] packed, int index, int string ) {
+		for ( int i = 0; i < index; i++ ) {
+			if ( Location.packedString( packed[ i ] ) == string )
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Provides a pretty printed string of the scores for this list.
 	 */
@@ -197,6 +475,17 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 		return toString( scores );
 	}
 
+	/**
+	 * Provides a pretty printed string of the scores for this ranked list.
+	 * Uses the attached score vector if there is one, rather than scoring again.
+	 */
+	public String getScoreString( RankedLocationList ranked ) {
+		int [] scores = ranked.getScores();
+		if ( null == scores )
+			scores = compositeScore( ranked.getLocations() );
+		return toString( scores );
+	}
+
 	/**
 	 * Provides a description of the composite scores.
 	 */
@@ -241,6 +530,10 @@ public class ChordRank implements Comparator<LocationList>, SimpleProperties<Cho
 	protected int maxFret = 18;
 	protected int skipStringPenalty = 1;
 	protected int sameStringPenalty = 1;
+	protected volatile MemoEntry [] memo = null;
+	protected final AtomicLong memoHits = new AtomicLong();
+	protected final AtomicLong memoMisses = new AtomicLong();
+	protected final AtomicLong memoClears = new AtomicLong();
 	
 	// SimpleProperties implementation
 	protected String metaName;
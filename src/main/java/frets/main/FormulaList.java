@@ -5,8 +5,12 @@ import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import frets.util.FilenameRegExFilter;
 
@@ -35,6 +39,19 @@ public class FormulaList {
 	}
 
 
+	/** Returns the formulas of a properties file, in id order. Reads the file once. */
+	public static List<Formula> getFormulas( String fileName ) throws IOException {
+		Properties properties = loadProperties( fileName );
+		Set<String> seen = new HashSet<String>();
+		List<Formula> formulas = new LinkedList<Formula>();
+		for ( int id = 0; null != properties.get( Integer.toString( id ) + ".id" ); id++ ) {
+			Formula formula = getFormula( properties, id );
+			if (( null != formula.getName() ) && seen.add( formula.getName() ))
+				formulas.add( formula );
+		}
+		return formulas;
+	}
+
 	/** Load a collection of this class. 
 	 * If #.id has a value, then the properties #.name, etc are read in. 
 	 * @param fileName
@@ -42,27 +59,43 @@ public class FormulaList {
 	 */
 	public static void populateFromFile( Map<String,Formula> propertiesMap, String fileName ) throws IOException {
 		// Read properties file. 
-		Properties properties = new Properties();
-		properties.load( new FileInputStream( fileName ) );
+		Properties properties = loadProperties( fileName );
 
 		// Convert from properties to Display bean
 		int id = 0;
 		while ( null != (String) properties.get( Integer.toString( id ) + ".id" ) ) {
 			// Value for key "#.id" exists. Populate a bean from this id.
-			Formula formula = new Formula();
-			formula.setName( (String) properties.get( Integer.toString( id ) + ".name"  ));
-			formula.setNameVerbose( (String) properties.get( Integer.toString( id ) + ".nameVerbose"  ));
-			String equation = (String) properties.get( Integer.toString( id ) + ".formula"  );
-			if (( null != equation ) && ( 0 < equation.length() )) {
-				equation = equation.replace(";", "-");
-				formula.setFormula( equation );
-			}
-			
+			Formula formula = getFormula( properties, id );
 			propertiesMap.put( formula.getName(), formula );
 			propertiesMap.put( formula.getFormula(), formula );
 			id++;
 		}
 	}
+
+	/** Reads a properties file and closes it. */
+	protected static Properties loadProperties( String fileName ) throws IOException {
+		Properties properties = new Properties();
+		FileInputStream is = new FileInputStream( fileName );
+		try {
+			properties.load( is );
+		} finally {
+			is.close();
+		}
+		return properties;
+	}
+
+	/** Returns the formula of the given id. Formula ";" delimiters read as "-". */
+	protected static Formula getFormula( Properties properties, int id ) {
+		Formula formula = new Formula();
+		formula.setName( (String) properties.get( Integer.toString( id ) + ".name"  ));
+		formula.setNameVerbose( (String) properties.get( Integer.toString( id ) + ".nameVerbose"  ));
+		String equation = (String) properties.get( Integer.toString( id ) + ".formula"  );
+		if (( null != equation ) && ( 0 < equation.length() )) {
+			equation = equation.replace(";", "-");
+			formula.setFormula( equation );
+		}
+		return formula;
+	}
 	
 	/** Opens a path at the given name, attempts to read files from there.
 	 *  Use optional filter as a java.io.FilenameFilter. */
@@ -7,12 +7,15 @@ import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,6 +27,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -38,6 +42,11 @@ import frets.util.FilenameRegExFilter;
  * Encapsulates a fretboard.
  * A fretboard is a list of 0 or more guitar strings.
  * <p>
+ * The strings are held in a random access, read only snapshot. Each change through
+ * the List methods makes a new snapshot and precomputes the low and high strings and
+ * the open pitch, max fret and octave fret of each string, so per location lookups
+ * are constant time. {@link freeze} makes the fretboard read only.
+ * <p>
  * Also includes some static factory methods for pulling standard fretboards
  * from a properties repository.
  * There is a singleton fretboard in memory which is the
@@ -58,6 +67,8 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	public static final boolean ENHARMONICS = false;
 	/** Courtesy constant to make "getVariation" calls more readable. */
 	public static final boolean OCTAVES = true;
+	/** Courtesy constant to make "explodeAndRank" calls more readable. */
+	public static final boolean GRAYCODE = true;
 
 	public static final String PROP_PATH = "frets/main/fretboards/";
 	public static final String ALL_FRETBOARD_PROPS = "fretboard[.].*[.]properties";
@@ -73,20 +84,19 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 		setStrings( strings );
 	}
 		
+	/** Returns a read only list of the strings. */
 	public List<GuitarString> getStrings() {
 		return strings;
 	}
 
 	public void setStrings( final List<GuitarString> strings) {
-		this.strings = strings;
-		validateLowHigh();
+		checkFrozen();
+		setSnapshot(( null == strings ) ? new ArrayList<GuitarString>() : new ArrayList<GuitarString>( strings ));
 	}
 	public void setStrings( final GuitarString ... strings ) {
 		if ( null != strings ) {
-			this.strings = new LinkedList<GuitarString>();
-			for ( int i = 0; i < strings.length; i++ )
-   		       this.strings.add( strings[ i ] );
-			validateLowHigh();
+			checkFrozen();
+			setSnapshot( new ArrayList<GuitarString>( Arrays.asList( strings )));
 		}
 	}
 	
@@ -102,59 +112,152 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 		return highString;
 	}
 
+	/** Returns the absolute pitch of the open string. */
+	public int getOpenPitch( int stringi ) {
+		return openPitches[ stringi ];
+	}
+
+	/** Returns the max fret of the string. */
+	public int getMaxFret( int stringi ) {
+		return maxFrets[ stringi ];
+	}
+
+	/** Returns the octave fret of the string. */
+	public int getOctaveFret( int stringi ) {
+		return octaveFrets[ stringi ];
+	}
+
+	/** Returns the open pitch of the low string, or 0 with no strings. */
+	public int getLowPitch() {
+		return lowPitch;
+	}
+
+	/** Returns the pitch of the max fret of the high string, or 0 with no strings. */
+	public int getHighPitch() {
+		return highPitch;
+	}
+
+	/** Makes this fretboard read only. Changes through the List methods then throw UnsupportedOperationException.
+	 * Returns this fretboard. */
+	public Fretboard freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/** Returns a stable fingerprint of what this fretboard plays, the open pitch and max fret of each string in order.
+	 * Fretboards with equal fingerprints give the same locations and variations.
+	 * Unlike hashCode, it is a value that can be kept as a key after the fretboard changes.
+	 * For example standard tuning is "31:22,36:22,41:22,46:22,50:22,55:22". */
+	public String getFingerprint() {
+		StringBuilder sb = new StringBuilder();
+		for ( int stringi = 0; stringi < openPitches.length; stringi++ ) {
+			if ( sb.length() > 0 )
+				sb.append( "," );
+			sb.append( openPitches[ stringi ] ).append( ":" ).append( maxFrets[ stringi ] );
+		}
+		return sb.toString();
+	}
+
+	/** Returns the compiled pitch index of this fretboard, building it on first use. */
+	public FretboardIndex getIndex() {
+		FretboardIndex current = index;
+		if ( null == current ) {
+			current = new FretboardIndex( strings );
+			index = current;
+		}
+		return current;
+	}
+
+	/** Drops the compiled pitch index and precomputed string values. Call after changing a GuitarString of this fretboard in place. */
+	public void resetIndex() {
+		validateLowHigh();
+	}
+
+	/** Returns a modifiable copy of the strings to change, or throws if frozen. */
+	protected List<GuitarString> edit() {
+		checkFrozen();
+		return new ArrayList<GuitarString>( strings );
+	}
+
+	protected void checkFrozen() {
+		if ( frozen )
+			throw new UnsupportedOperationException( "Fretboard " + metaName + " is frozen." );
+	}
+
+	/** Makes the changed strings the current snapshot. */
+	protected void setSnapshot( final List<GuitarString> changed ) {
+		strings = Collections.unmodifiableList( changed );
+		validateLowHigh();
+	}
+
+	/** Precomputes the low and high strings and the values of each string. */
 	protected void validateLowHigh() {
-		lowString = null;
-		highString = null;
-		if ( null != strings ) {
-			for ( int i = 0; i < strings.size(); i++ ) {
-				GuitarString currString = strings.get( i ); 
-				if ((null == lowString) || ( currString.compareTo( lowString ) < 0 ))
-					lowString = currString;
-				if ((null == highString) || ( currString.compareTo( highString ) > 0 ))
-					highString = currString;
-			}
-		}		
+		index = null;
+		GuitarString low = null;
+		GuitarString high = null;
+		int count = strings.size();
+		int [] opens = new int[ count ];
+		int [] maxes = new int[ count ];
+		int [] octaves = new int[ count ];
+		int max = 0;
+		for ( int i = 0; i < count; i++ ) {
+			GuitarString currString = strings.get( i ); 
+			if ((null == low) || ( currString.compareTo( low ) < 0 ))
+				low = currString;
+			if ((null == high) || ( currString.compareTo( high ) > 0 ))
+				high = currString;
+			opens[ i ] = currString.getOpenNote().getAbsoluteValue();
+			maxes[ i ] = currString.getMaxFret();
+			octaves[ i ] = currString.getOctaveFret();
+			max = ( 0 == i ) ? maxes[ i ] : Math.max( max, maxes[ i ] );
+		}
+		lowString = low;
+		highString = high;
+		openPitches = opens;
+		maxFrets = maxes;
+		octaveFrets = octaves;
+		maxFret = max;
+		lowPitch = ( null == low ) ? 0 : low.getOpenNote().getAbsoluteValue();
+		highPitch = ( null == high ) ? 0 : high.getOpenNote().getAbsoluteValue() + high.getMaxFret();
 	}
 	
 	public int getStringCount() {
-		if ( null == strings ) return 0;
 		return strings.size();
 	}
 
 	public void sortStrings() {
-    	Collections.sort( strings );
+		List<GuitarString> changed = edit();
+    	Collections.sort( changed );
+		setSnapshot( changed );
 	}
 
 	/** Gets highest fret of any of the strings. If string have different frets, this can be weird. */
 	public int getMaxFret() {
-		if (( null == strings ) || ( strings.size() < 1 ))
-			return 0;
-		int maxFret = Integer.MIN_VALUE; 
-		for ( GuitarString string: strings ) {
-			if ( string.getMaxFret() > maxFret ) {
-				maxFret = string.getMaxFret();
-			}			
-		}
 		return maxFret;		
 	}
 	
 	// Collection API
 	public boolean add(GuitarString o) {
-		boolean result = strings.add(o);
-		validateLowHigh();
+		List<GuitarString> changed = edit();
+		boolean result = changed.add(o);
+		setSnapshot( changed );
 		return result;
 	}
 
 	public boolean addAll(Collection<? extends GuitarString> c) {
-		boolean result = strings.addAll(c);
-		validateLowHigh();
+		List<GuitarString> changed = edit();
+		boolean result = changed.addAll(c);
+		setSnapshot( changed );
 		return result;
 	}
 
 	public void clear() {
-		strings.clear();
-		lowString = null;
-		highString = null;
+		checkFrozen();
+		setSnapshot( new ArrayList<GuitarString>() );
 	}
 
 	public boolean contains(Object o) {
@@ -174,19 +277,24 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	}
 
 	public boolean remove(Object o) {
-		boolean result = strings.remove(o);
-		validateLowHigh();
+		List<GuitarString> changed = edit();
+		boolean result = changed.remove(o);
+		setSnapshot( changed );
 		return result;
 	}
 
 	public boolean removeAll(Collection<?> c) {
-		lowString = null;
-		highString = null;
-		return strings.removeAll(c);
+		List<GuitarString> changed = edit();
+		boolean result = changed.removeAll(c);
+		setSnapshot( changed );
+		return result;
 	}
 
 	public boolean retainAll(Collection<?> c) {
-		return strings.retainAll(c);
+		List<GuitarString> changed = edit();
+		boolean result = changed.retainAll(c);
+		setSnapshot( changed );
+		return result;
 	}
 
 	public int size() {
@@ -203,11 +311,16 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 
 	// List methods
 	public void add(int index, GuitarString element) {
-		strings.add(index, element);
+		List<GuitarString> changed = edit();
+		changed.add(index, element);
+		setSnapshot( changed );
 	}
 
 	public boolean addAll(int index, Collection<? extends GuitarString> c) {
-		return strings.addAll(index, c);
+		List<GuitarString> changed = edit();
+		boolean result = changed.addAll(index, c);
+		setSnapshot( changed );
+		return result;
 	}
 
 	public GuitarString get(int index) {
@@ -231,11 +344,17 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	}
 
 	public GuitarString remove(int index) {
-		return strings.remove(index);
+		List<GuitarString> changed = edit();
+		GuitarString result = changed.remove(index);
+		setSnapshot( changed );
+		return result;
 	}
 
 	public GuitarString set(int index, GuitarString element) {
-		return strings.set(index, element);
+		List<GuitarString> changed = edit();
+		GuitarString result = changed.set(index, element);
+		setSnapshot( changed );
+		return result;
 	}
 
 	public List<GuitarString> subList(int fromIndex, int toIndex) {
@@ -254,14 +373,7 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	public LocationList getLocations( final Note note, int minFret, int maxFret ) {
 		if ( null == note ) return null;
 		if (( null == strings ) || ( 0 == strings.size() )) return null;
-		LocationList locations = new LocationList();		
-		for ( int stringi = 0; stringi < strings.size(); stringi++ ) {
-			GuitarString guitarString = strings.get( stringi );
-			int freti = guitarString.getFret( note );
-			if (( freti >= minFret ) && ( freti < maxFret )) 
-				locations.add(  new Location( stringi, freti ));
-		}
-		return locations;
+		return getIndex().getLocations( note.getAbsoluteValue(), minFret, maxFret );
 	}
 	
 	/** Returns a list or null for locations of each note in the NoteList in the fret range. 
@@ -339,40 +451,41 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	 */
 	public List<LocationList> getVariations( final LocationList fixed, final NoteList variableNotes, int minFret, int maxFret, boolean includeOctaves ) {
 		if (( null == variableNotes ) || ( 0 == variableNotes.size() )) return null;
+		int [] pitches = new int[ variableNotes.size() ];
+		for ( int notei = 0; notei < pitches.length; notei++ )
+			pitches[ notei ] = variableNotes.getAbsoluteValue( notei );
+		return getVariations( fixed, pitches, minFret, maxFret, includeOctaves );
+	}
+
+	/** Returns a list or null for locations of each absolute pitch, as {@link getVariations(LocationList,NoteList,int,int,boolean)}.
+	 * Callers that already hold pitches skip building Note objects.
+	 */
+	public List<LocationList> getVariations( final LocationList fixed, final int [] pitches, int minFret, int maxFret, boolean includeOctaves ) {
+		if (( null == pitches ) || ( 0 == pitches.length )) return null;
 		if (( null == strings ) || ( 0 == strings.size() )) return null;
 		
+		FretboardIndex index = getIndex();
 		List<LocationList> variations = new LinkedList<LocationList>();
 		if ( null != fixed ) {
 			for( Location location : fixed ) {
 				variations.add( new LocationList( location ) );				
 			}
 		}
-		for ( int notei = 0; notei < variableNotes.size(); notei++ ) {
-			Note note = variableNotes.get( notei );
-			LocationList locations = getLocations( note, minFret, maxFret ); 
+		for ( int pitch : pitches ) {
+			LocationList locations = index.getLocations( pitch, minFret, maxFret ); 
 			// What if note is not available on this fretboard? For example bass note on soprano ukelele
 			
 			if ( includeOctaves == OCTAVES ) {
 		        // Get lower octave variations.
-				Note lowerNote = Note.minus( note, Interval.octave );
-				GuitarString lowString = this.getLowString();
-				Note lowOpen = lowString.getOpenNote();
-				while (( lowerNote.getAbsoluteValue() >=0 ) && (lowerNote.compareTo(lowOpen) >= 0)) {
-				   // System.out.println( "Comparing with lower note=" + lowerNote );	
-				   LocationList lowerLocations = getLocations( lowerNote, minFret, maxFret );
-				   locations.addAll( lowerLocations );
-				   lowerNote = lowerNote.minus( Interval.octave );				   
+				int lowOpen = lowPitch;
+				for ( int lower = pitch - 12; ( lower >= 0 ) && ( lower >= lowOpen ); lower -= 12 ) {
+				   locations.addAll( index.getLocations( lower, minFret, maxFret ));
 				}
 				
 				// Get higher octave variations.
-				Note higherNote = Note.plus( note, Interval.octave );
-				GuitarString highString = this.getHighString();
-				Note highMax = highString.getHighNote();
-				while (( higherNote.getAbsoluteValue() <= Integer.MAX_VALUE ) && (higherNote.compareTo(highMax) <= 0)) {
-				   // System.out.println( "Comparing with higher note=" + higherNote );	
-				   LocationList higherLocations = getLocations( higherNote, minFret, maxFret );
-				   locations.addAll( higherLocations );
-				   higherNote = higherNote.plus( Interval.octave );				   
+				int highMax = highPitch;
+				for ( int higher = pitch + 12; higher <= highMax; higher += 12 ) {
+				   locations.addAll( index.getLocations( higher, minFret, maxFret ));
 				}
 			}
 			variations.add( locations );
@@ -389,20 +502,164 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	 *    Outputs are lists of locations e.g. [[(0,4),(0,6)],[(0,4),(1,1)]] (2 location lists) 
 	 * In other words, use getpermutationCount and getPermutation for variation lists.
 	 * Use size and get for location lists. 
+	 * A null ranker sorts the location lists in their natural order.
 	 * */
 	public static List<LocationList> explodeAndSort( final List<LocationList> variations, final ChordRank ranker ) {
-		long varCount = Fretboard.getPermutationCount( variations );
     	List<LocationList> sortedVars = new LinkedList<LocationList>();
-    	for( int i = 0; i < varCount; i ++ ) {
-    		sortedVars.add( Fretboard.getPermutation( variations, i ));
+    	if ( null == ranker ) {
+    		// Natural LocationList order.
+    		for( LocationList permutation : getPermutations( variations ) ) {
+    			sortedVars.add( permutation );
+    		}
+    		Collections.sort( sortedVars );
+    		return sortedVars;
+    	}
+    	for( RankedLocationList ranked : explodeAndRank( variations, ranker ) ) {
+    		sortedVars.add( ranked.getLocations() );
     	}
-    	Collections.sort( sortedVars, ranker );
     	return sortedVars;
 	}
 
+	/** Returns all permutations of the variations, best first, with their score vectors and permutation numbers.
+	 * The order is the same as {@link explodeAndSort}.
+	 * Each permutation is scored once with {@link ChordRank#compositeScore}, rather than
+	 * on every comparison of a sort. The sort is over one long key per permutation,
+	 * the sum score in the high int and the permutation number in the low int.
+	 * A subclass of ChordRank may order lists its own way, so its permutations are
+	 * sorted with its {@link ChordRank#compare}, ties in permutation number order.
+	 */
+	public static List<RankedLocationList> explodeAndRank( final List<LocationList> variations, final ChordRank ranker ) {
+		if ( null == ranker )
+			throw new IllegalArgumentException( "A ranker must be provided to rank permutations." );
+		long count = getPermutationCount( variations );
+		if ( count > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "Permutation count " + count + " is too large to sort in memory. Use topK." );
+		LocationList [] permutations = new LocationList[ (int) count ];
+		int [][] scores = new int[ (int) count ][];
+		long [] keys = new long[ (int) count ];
+		int permi = 0;
+		for( LocationList permutation : getPermutations( variations ) ) {
+			permutations[ permi ] = permutation;
+			scores[ permi ] = ranker.compositeScore( permutation );
+			keys[ permi ] = ((long) scores[ permi ][ 0 ] << 32 ) | permi;
+			permi++;
+		}
+		List<RankedLocationList> ranked = new LinkedList<RankedLocationList>();
+		if ( ChordRank.class != ranker.getClass() ) {
+			// Stable sort by the subclass comparator.
+			Integer [] order = new Integer[ permutations.length ];
+			for ( int i = 0; i < order.length; i++ )
+				order[ i ] = i;
+			final LocationList [] sorted = permutations;
+			Arrays.sort( order, new Comparator<Integer>() {
+				public int compare( Integer a, Integer b ) {
+					return ranker.compare( sorted[ a ], sorted[ b ] );
+				}
+			});
+			for ( int index : order )
+				ranked.add( new RankedLocationList( permutations[ index ], index, scores[ index ] ));
+			return ranked;
+		}
+		Arrays.sort( keys );
+		for ( long key : keys ) {
+			int index = (int) key; // low int, permutation number
+			ranked.add( new RankedLocationList( permutations[ index ], index, scores[ index ] ));
+		}
+		return ranked;
+	}
+
+	/** Returns all permutations of the variations, best first, as {@link explodeAndRank(List,ChordRank)}.
+	 * With grayCode, permutations are visited in Gray code order and scores are updated
+	 * one location at a time. See {@link GrayCodeRank}. The result is identical either way.
+	 */
+	public static List<RankedLocationList> explodeAndRank( final List<LocationList> variations, final ChordRank ranker, boolean grayCode ) {
+		if ( grayCode == GRAYCODE )
+			return new GrayCodeRank( variations, ranker ).rank();
+		return explodeAndRank( variations, ranker );
+	}
+
+	/** Returns the k best permutations of the variations, best first.
+	 * The result is the same as the first k location lists of {@link explodeAndSort},
+	 * but only k permutations are held in memory at a time.
+	 */
+	public static List<LocationList> topK( final List<LocationList> variations, final ChordRank ranker, int k ) {
+		List<LocationList> best = new LinkedList<LocationList>();
+		for ( RankedLocationList ranked : topKRanked( variations, ranker, k ) ) {
+			best.add( ranked.getLocations() );
+		}
+		return best;
+	}
+
+	/** Returns the k best permutations of the variations, best first, with their scores and permutation numbers.
+	 * Each permutation is scored once with {@link ChordRank#getSum}.
+	 * A bounded heap keeps the k best seen so far. Ties go to the lower permutation number.
+	 */
+	public static List<RankedLocationList> topKRanked( final List<LocationList> variations, final ChordRank ranker, int k ) {
+		Permutations permutations = getPermutations( variations, true );
+		return RankTask.rank( permutations, ranker, k, 0, permutations.getCount() );
+	}
+
+	/** Returns the k best permutations of the variations, best first, ranked in parallel on the shared pool.
+	 * The result is the same as {@link topKRanked}.
+	 */
+	public static List<RankedLocationList> topKParallel( final List<LocationList> variations, final ChordRank ranker, int k ) {
+		return topKParallel( variations, ranker, k, RankTask.POOL );
+	}
+
+	/** Returns the k best permutations of the variations, best first, ranked in parallel on the given pool.
+	 * The permutation number range is split into independent ranges, each ranked with its own bounded heap.
+	 * The result is the same as {@link topKRanked}.
+	 */
+	public static List<RankedLocationList> topKParallel( final List<LocationList> variations, final ChordRank ranker, int k, final ForkJoinPool pool ) {
+		if ( null == ranker )
+			throw new IllegalArgumentException( "A ranker must be provided to rank permutations." );
+		return pool.invoke( RankTask.getInstance( variations, ranker, k, pool.getParallelism() ));
+	}
+
+	/** Returns the k best permutations of the variations, best first.
+	 * The result is the same as {@link topK}, but found with a {@link VoicingSearch}
+	 * that skips partial voicings which cannot rank among the k best.
+	 */
+	public static List<LocationList> topKPruned( final List<LocationList> variations, final ChordRank ranker, int k ) {
+		List<LocationList> best = new LinkedList<LocationList>();
+		for ( RankedLocationList ranked : new VoicingSearch( variations, ranker ).topK( k ) ) {
+			best.add( ranked.getLocations() );
+		}
+		return best;
+	}
+
+	/** Returns a lazy iterable of every permutation of the variations, in permutation number order.
+	 * Each permutation is a new LocationList, equal to {@link getPermutation} for that number.
+	 */
+	public static Permutations getPermutations( final List<LocationList> variations ) {
+		return new Permutations( variations );
+	}
+
+	/** Returns a lazy iterable of every permutation of the variations, in permutation number order.
+	 * With reuse, one scratch LocationList is updated in place and returned for every permutation.
+	 */
+	public static Permutations getPermutations( final List<LocationList> variations, boolean reuse ) {
+		return new Permutations( variations, reuse );
+	}
+
+	/** Returns the permutations of the variations that play each location on its own string, in permutation number order.
+	 * Permutations with repeated strings are never generated. See {@link UniqueStringVoicings}.
+	 */
+	public static List<LocationList> getUniqueStringPermutations( final List<LocationList> variations ) {
+		return new UniqueStringVoicings( variations ).getVoicings();
+	}
+
+	/** Returns the permutations of the variations in permutation number order, less any that play
+	 * the same locations as an earlier permutation in a different order. See {@link VoicingDedup}.
+	 */
+	public static List<LocationList> getDistinctPermutations( final List<LocationList> variations ) {
+		return VoicingDedup.getInstance( variations ).dedup( getPermutations( variations ));
+	}
+
 	/** Returns a count of all variations. 
 	 * The count is the total permutations of all the enharmonic and octave locations in the list.
-	 * int blows up with > 2billion, (about 17 locations with variations)
+	 * Throws IllegalArgumentException if the count overflows a long. 
+	 * Use {@link getPermutationCountExact} or {@link PermutationId} for larger spaces.
 	 * <p>
 	 * Also see {@link getPermutationNumber} which returns the variation number of a given location list.
 	 * Also see {@link getPermutation} which returns the location list of a given variation number.
@@ -418,12 +675,20 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 				if (( null != enharmonics ) && ( 0 < enharmonics.size() ))
 					count = enharmonics.size();
 			} else {
-				if (( null != enharmonics ) && ( 0 < enharmonics.size() ))
+				if (( null != enharmonics ) && ( 0 < enharmonics.size() )) {
+					if ( count > Long.MAX_VALUE / enharmonics.size() )
+						throw new IllegalArgumentException( "Permutation count " + getPermutationCountExact( variations ) + " overflows a long." );
 					count *= enharmonics.size();				
+				}
 			}
 		}
 		return count;
 	}
+
+	/** Returns a count of all variations, of any size. See {@link getPermutationCount}. */
+	public static BigInteger getPermutationCountExact( final List<LocationList> variations  ) {
+		return PermutationId.getCount( PermutationId.getRadices( variations ));
+	}
 	
 	/** 
 	 * Given a list of enharmonic notes, return the LocationList of variationi, one of the permutations.
@@ -510,16 +775,22 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	 *    variationi == 2 ==> "2/6 (002/123)"  
 	 *    variationi == 3 ==> "3/6 (010/123)"  
 	 *    variationi == 6 ==> "6/6 (012/123)"  
-	 * FYI, this notation might breakdown with more than 10 locations on a large fretboard.
+	 * When any list has more than 9 locations, digits are separated by {@link PermutationId#DIGIT_DELIM},
+	 * for example "1/220 (0.0.1/11.4.5)", so large fretboards print without ambiguity.
 	 */
 	public static String getPermutationString( final List<LocationList> variations, long variationi  ) {
 		String INVALID = "ø";
 		if (( null == variations ) || ( 0 == variations.size() )) return INVALID;
 		if ( 0 > variationi ) return INVALID + "(" + variationi + ")";
 		
-		long numVariations = getPermutationCount( variations );
-		if ( variationi >= numVariations ) return INVALID + "(" + variationi + "/" + numVariations + ")";
+		BigInteger numVariations = getPermutationCountExact( variations );
+		if ( BigInteger.valueOf( variationi ).compareTo( numVariations ) >= 0 ) return INVALID + "(" + variationi + "/" + numVariations + ")";
 				
+		// Digits are delimited when any radix needs more than one character.
+		String delim = "";
+		for ( int radix : PermutationId.getRadices( variations )) {
+			if ( radix > 9 ) delim = PermutationId.DIGIT_DELIM;
+		}
 		// Choose one location variation from each list.
 		// for ( int listi = variations.size() - 1; listi >= 0; listi-- ) {
 		StringBuffer binaryVar = new StringBuffer();
@@ -532,14 +803,14 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 				long digitSize = enharmonics.size();
 				if ( 0 < digitSize ) {
 				   long digit = remainder % digitSize;
-				   binaryVar.insert( 0, digit ); // prepend				   
+				   binaryVar.insert( 0, digit + ( binaryVar.length() > 0 ? delim : "" )); // prepend				   
    			       remainder /= digitSize;
 				} else
- 				   binaryVar.append( "?" );   			    
-	    		binaryTot.insert( 0, digitSize ); // prepend
+ 				   binaryVar.append(( binaryVar.length() > 0 ? delim : "" ) + "?" );   			    
+	    		binaryTot.insert( 0, digitSize + ( binaryTot.length() > 0 ? delim : "" )); // prepend
 			}			
 		}
-		String varString = Long.toString( variationi ) + "/" + Long.toString( numVariations )
+		String varString = Long.toString( variationi ) + "/" + numVariations
 		   + " ("  + binaryVar.toString() + "/" + binaryTot.toString() + ")";
 		return varString;
 	}
@@ -557,7 +828,7 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	 *    note 1 variation n (2)
 	 *    note 2 variation i (1)
 	 *    note 2 variation n (3)
-	 * FYI, this notation might breakdown with more than 10 locations on a large fretboard.
+	 * Digits separated by {@link PermutationId#DIGIT_DELIM}, as in "1/220 (0.0.1/11.4.5)", are also parsed.
 	 */
 	public static long [] getPermutationValues( String permutationString ) {
 		if (null == permutationString) return null;
@@ -568,21 +839,35 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	    if ( tokens.length == 2 )
 	       return new long [] { Long.parseLong( tokens[ 0 ] ), Long.parseLong( tokens[ 1 ] ),  0 };
 	    if ( tokens.length == 4 ) {
-	    	long noteCount = tokens[ 2 ].length();
+	    	String [] digits = splitDigits( tokens[ 2 ] );
+	    	String [] radices = splitDigits( tokens[ 3 ] );
+	    	if ( digits.length != radices.length )
+	    		return null;
+	    	long noteCount = digits.length;
  	        long [] vals = new long[ 3 + 2 * (int)noteCount ];
  	        vals[ 0 ] = Long.parseLong( tokens[ 0 ] );
  	        vals[ 1 ] = Long.parseLong( tokens[ 1 ] );
  	        vals[ 2 ] = noteCount;
  	        for ( int i = 0; i < noteCount; i++ ) {
  	        	int vali = 3 + i*2; 	        	
- 	        	vals[ vali ] = Long.parseLong( tokens[ 2 ].substring( i, i+1 )); // note i, variation i, variation N
- 	        	vals[ vali + 1 ] = Long.parseLong( tokens[ 3 ].substring( i, i+1 ));
+ 	        	vals[ vali ] = Long.parseLong( digits[ i ] ); // note i, variation i, variation N
+ 	        	vals[ vali + 1 ] = Long.parseLong( radices[ i ] );
  	        }
  	        return vals;
 	    }
 		return null;		
 	}
 	
+	/** Splits delimited digits, or single character digits when there is no delimiter. */
+	protected static String [] splitDigits( String digits ) {
+		if ( digits.contains( PermutationId.DIGIT_DELIM ))
+			return digits.split( "[" + PermutationId.DIGIT_DELIM + "]" );
+		String [] split = new String[ digits.length() ];
+		for ( int i = 0; i < digits.length(); i++ )
+			split[ i ] = digits.substring( i, i + 1 );
+		return split;
+	}
+
 	/** Returns a sorted list of strings not played with this location list. */
 	public List<Integer> getNotPlayedSet( LocationList locations ) {
 		List<Integer> playedSet = null;
@@ -1153,5 +1438,13 @@ public class Fretboard implements List<GuitarString>, SimpleProperties<Fretboard
 	
 	protected GuitarString lowString = null;
 	protected GuitarString highString = null;
-	protected List<GuitarString> strings = new LinkedList<GuitarString>();	
+	protected volatile FretboardIndex index = null;
+	protected List<GuitarString> strings = Collections.unmodifiableList( new ArrayList<GuitarString>() );
+	protected int [] openPitches = new int[ 0 ];
+	protected int [] maxFrets = new int[ 0 ];
+	protected int [] octaveFrets = new int[ 0 ];
+	protected int maxFret = 0;
+	protected int lowPitch = 0;
+	protected int highPitch = 0;
+	protected boolean frozen = false;
 }
\ No newline at end of file
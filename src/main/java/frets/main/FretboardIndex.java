@@ -0,0 +1,151 @@
+package frets.main;
+
+import java.util.List;
+
+/**
+ * An immutable, compiled view of the pitches on a fretboard.
+ * <p>
+ * Holds two tables built once from the fretboard strings:
+ *    - a pitch matrix, the absolute pitch ({@link Note#getAbsoluteValue}) of every string and fret
+ *    - a location table, the packed locations ({@link Location#pack}) of every absolute pitch
+ * so that note and location lookups are array reads rather than walks over
+ * the string list with Note comparisons and allocations.
+ * <p>
+ * Playable frets of a string run from 0 up to, but not including, the string max fret,
+ * the same range as {@link GuitarString#getFret} and {@link Location#getNote}.
+ * The index is a snapshot. It does not follow later changes to the fretboard strings.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class FretboardIndex {
+	/** Returned for a string and fret that is not on the fretboard. */
+	public static final int NO_PITCH = Integer.MIN_VALUE;
+
+	protected static final int [] NO_LOCATIONS = new int [ 0 ];
+
+	public FretboardIndex( final List<GuitarString> strings ) {
+		int stringCount = ( null == strings ) ? 0 : strings.size();
+		openPitches = new int[ stringCount ];
+		maxFrets = new int[ stringCount ];
+		pitches = new int[ stringCount ][];
+
+		int lowest = Integer.MAX_VALUE;
+		int highest = Integer.MIN_VALUE;
+		int stringi = 0;
+		if ( null != strings ) {
+			for ( GuitarString guitarString : strings ) {
+				int open = guitarString.getOpenNote().getAbsoluteValue();
+				int maxFret = Math.max( 0, guitarString.getMaxFret() );
+				openPitches[ stringi ] = open;
+				maxFrets[ stringi ] = maxFret;
+				pitches[ stringi ] = new int[ maxFret ];
+				for ( int freti = 0; freti < maxFret; freti++ ) {
+					pitches[ stringi ][ freti ] = open + freti;
+				}
+				if ( maxFret > 0 ) {
+					lowest = Math.min( lowest, open );
+					highest = Math.max( highest, open + maxFret - 1 );
+				}
+				stringi++;
+			}
+		}
+
+		if ( lowest > highest ) {
+			lowestPitch = 0;
+			highestPitch = -1;
+			locations = new int[ 0 ][];
+			return;
+		}
+		lowestPitch = lowest;
+		highestPitch = highest;
+
+		// Count, then fill, the locations of each pitch in string order.
+		int [] counts = new int[ highest - lowest + 1 ];
+		for ( stringi = 0; stringi < stringCount; stringi++ ) {
+			for ( int freti = 0; freti < maxFrets[ stringi ]; freti++ )
+				counts[ pitches[ stringi ][ freti ] - lowest ]++;
+		}
+		locations = new int[ counts.length ][];
+		for ( int i = 0; i < counts.length; i++ ) {
+			locations[ i ] = ( 0 == counts[ i ] ) ? NO_LOCATIONS : new int[ counts[ i ] ];
+			counts[ i ] = 0;
+		}
+		for ( stringi = 0; stringi < stringCount; stringi++ ) {
+			for ( int freti = 0; freti < maxFrets[ stringi ]; freti++ ) {
+				int pitchi = pitches[ stringi ][ freti ] - lowest;
+				locations[ pitchi ][ counts[ pitchi ]++ ] = Location.pack( stringi, freti );
+			}
+		}
+	}
+
+	public int getStringCount() {
+		return openPitches.length;
+	}
+
+	/** Returns the absolute pitch of the open string. */
+	public int getOpenPitch( int stringi ) {
+		return openPitches[ stringi ];
+	}
+
+	/** Returns the max fret of the string. Playable frets are less than this. */
+	public int getMaxFret( int stringi ) {
+		return maxFrets[ stringi ];
+	}
+
+	/** Returns the lowest playable absolute pitch. Greater than the highest pitch for an empty fretboard. */
+	public int getLowestPitch() {
+		return lowestPitch;
+	}
+
+	/** Returns the highest playable absolute pitch. */
+	public int getHighestPitch() {
+		return highestPitch;
+	}
+
+	/** Returns the absolute pitch of the string and fret, or NO_PITCH if not on the fretboard. */
+	public int getPitch( int stringi, int freti ) {
+		if (( stringi < 0 ) || ( stringi >= pitches.length ))
+			return NO_PITCH;
+		if (( freti < 0 ) || ( freti >= pitches[ stringi ].length ))
+			return NO_PITCH;
+		return pitches[ stringi ][ freti ];
+	}
+
+	/** Returns the absolute pitch of the packed location, or NO_PITCH if not on the fretboard. */
+	public int getPitch( int packed ) {
+		return getPitch( Location.packedString( packed ), Location.packedFret( packed ));
+	}
+
+	/** Returns the number of locations that play the absolute pitch. */
+	public int getLocationCount( int pitch ) {
+		if (( pitch < lowestPitch ) || ( pitch > highestPitch ))
+			return 0;
+		return locations[ pitch - lowestPitch ].length;
+	}
+
+	/** Returns the packed location i of the absolute pitch. Locations are in string order. */
+	public int getLocation( int pitch, int i ) {
+		return locations[ pitch - lowestPitch ][ i ];
+	}
+
+	/** Get all locations of the absolute pitch in this fret range, min inclusive, max exclusive.
+	 * Gives the same result as {@link Fretboard#getLocations(Note,int,int)}. */
+	public LocationList getLocations( int pitch, int minFret, int maxFret ) {
+		LocationList list = new LocationList();
+		int count = getLocationCount( pitch );
+		for ( int i = 0; i < count; i++ ) {
+			int packed = locations[ pitch - lowestPitch ][ i ];
+			int freti = Location.packedFret( packed );
+			if (( freti >= minFret ) && ( freti < maxFret ))
+				list.add( new Location( Location.packedString( packed ), freti ));
+		}
+		return list;
+	}
+
+	protected final int [] openPitches;
+	protected final int [] maxFrets;
+	protected final int [][] pitches;
+	protected final int lowestPitch;
+	protected final int highestPitch;
+	protected final int [][] locations;
+}
@@ -0,0 +1,194 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Ranks every permutation of a variation list, visiting them in reflected mixed-radix Gray code order.
+ * <p>
+ * Consecutive permutation numbers can change many digits at once, as an odometer rolls over.
+ * In Gray code order each step changes exactly one digit, so one location is swapped
+ * for another, and the {@link ChordRank#getSum} components are updated rather than rescored:
+ *    - fret bounds: less the old location, plus the new one
+ *    - fret span: a count of locations per fret, with the min and max fret moved as counts empty
+ *    - skip and same strings: a count of locations per string, with the unique string count
+ * Each permutation number is tracked alongside, so the ranking is sorted by score, then
+ * permutation number, and is identical to {@link Fretboard#explodeAndRank(List,ChordRank)}.
+ * <p>
+ * The component updates are those of the ChordRank class itself.
+ * For a subclass of ChordRank, {@link rank} falls back to {@link Fretboard#explodeAndRank(List,ChordRank)}.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class GrayCodeRank {
+
+	public GrayCodeRank( final List<LocationList> variations, final ChordRank ranker ) {
+		if ( null == ranker )
+			throw new IllegalArgumentException( "A ranker must be provided to rank permutations." );
+		this.variations = variations;
+		this.ranker = ranker;
+		permutations = new Permutations( variations );
+
+		digits = Permutations.getDigits( variations );
+		weights = Permutations.getWeights( digits );
+		int lowFret = Integer.MAX_VALUE;
+		int highFret = Integer.MIN_VALUE;
+		int lowString = Integer.MAX_VALUE;
+		int highString = Integer.MIN_VALUE;
+		for ( Location [] digit : digits ) {
+			for ( Location location : digit ) {
+				lowFret = Math.min( lowFret, location.getFret() );
+				highFret = Math.max( highFret, location.getFret() );
+				lowString = Math.min( lowString, location.getString() );
+				highString = Math.max( highString, location.getString() );
+			}
+		}
+		fretOffset = lowFret;
+		stringOffset = lowString;
+		fretCounts = new int[ Math.max( 0, highFret - lowFret + 1 ) ];
+		stringCounts = new int[ Math.max( 0, highString - lowString + 1 ) ];
+	}
+
+	/** Returns whether the incremental scores match the ranker, which is true for the ChordRank class itself. */
+	public boolean isIncremental() {
+		return ChordRank.class == ranker.getClass();
+	}
+
+	/** Returns all permutations, best first, with their score vectors and permutation numbers. */
+	public List<RankedLocationList> rank() {
+		if ( !isIncremental() )
+			return Fretboard.explodeAndRank( variations, ranker );
+		long count = permutations.getCount();
+		if ( count > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "Permutation count " + count + " is too large to sort in memory. Use topK." );
+		int [] boundsScores = new int[ (int) count ];
+		int [] spanScores = new int[ (int) count ];
+		int [] skipScores = new int[ (int) count ];
+		int [] sameScores = new int[ (int) count ];
+		long [] keys = new long[ (int) count ];
+
+		int n = digits.length;
+		reset();
+		if ( count > 0 ) {
+			// Start with digit 0 of every variation.
+			int [] counters = new int[ n ];
+			for ( int d = 0; d < n; d++ )
+				enter( digits[ d ][ 0 ] );
+
+			// Knuth's loopless reflected mixed-radix Gray code, Algorithm 7.2.1.1H,
+			// over the digits with more than one location. The others never change.
+			int [] moving = new int[ n ];
+			int m = 0;
+			for ( int d = 0; d < n; d++ ) {
+				if ( digits[ d ].length > 1 )
+					moving[ m++ ] = d;
+			}
+			int [] focus = new int[ m + 1 ];
+			int [] direction = new int[ m ];
+			for ( int j = 0; j <= m; j++ )
+				focus[ j ] = j;
+			Arrays.fill( direction, 1 );
+
+			long permutation = 0;
+			while ( true ) {
+				int permi = (int) permutation;
+				boundsScores[ permi ] = boundsScore;
+				spanScores[ permi ] = ranker.fretSpanScore( highestFret - lowestFret );
+				skipScores[ permi ] = (( highestString - lowestString + 1 ) - uniqueStrings ) * ranker.getSkipStringPenalty();
+				sameScores[ permi ] = ( n - uniqueStrings ) * ranker.getSameStringPenalty();
+				int sum = boundsScores[ permi ] + spanScores[ permi ] + skipScores[ permi ] + sameScores[ permi ];
+				keys[ permi ] = ((long) sum << 32 ) | permi;
+
+				int j = focus[ 0 ];
+				focus[ 0 ] = 0;
+				if ( j == m )
+					break;
+				int d = moving[ j ];
+				Location previous = digits[ d ][ counters[ d ] ];
+				counters[ d ] += direction[ j ];
+				permutation += direction[ j ] * weights[ d ];
+				swap( previous, digits[ d ][ counters[ d ] ] );
+				if (( 0 == counters[ d ] ) || ( digits[ d ].length - 1 == counters[ d ] )) {
+					direction[ j ] = -direction[ j ];
+					focus[ j ] = focus[ j + 1 ];
+					focus[ j + 1 ] = j + 1;
+				}
+			}
+		}
+		Arrays.sort( keys );
+
+		List<RankedLocationList> ranked = new LinkedList<RankedLocationList>();
+		for ( long key : keys ) {
+			int index = (int) key; // low int, permutation number
+			int [] scores = new int [] { (int) ( key >> 32 ),
+				boundsScores[ index ], spanScores[ index ], skipScores[ index ], sameScores[ index ] };
+			ranked.add( new RankedLocationList( permutations.get( index ), index, scores ));
+		}
+		return ranked;
+	}
+
+	/** Empties the voicing components. */
+	protected void reset() {
+		Arrays.fill( fretCounts, 0 );
+		Arrays.fill( stringCounts, 0 );
+		boundsScore = 0;
+		uniqueStrings = 0;
+		lowestFret = Integer.MAX_VALUE;
+		highestFret = Integer.MIN_VALUE;
+		lowestString = Integer.MAX_VALUE;
+		highestString = Integer.MIN_VALUE;
+	}
+
+	/** Adds a location to the voicing components. */
+	protected void enter( final Location location ) {
+		int fret = location.getFret();
+		int string = location.getString();
+		boundsScore += ranker.fretBoundsScore( fret );
+		if ( 0 == fretCounts[ fret - fretOffset ]++ ) {
+			lowestFret = Math.min( lowestFret, fret );
+			highestFret = Math.max( highestFret, fret );
+		}
+		if ( 0 == stringCounts[ string - stringOffset ]++ ) {
+			uniqueStrings++;
+			lowestString = Math.min( lowestString, string );
+			highestString = Math.max( highestString, string );
+		}
+	}
+
+	/** Replaces one location of the voicing with another, updating the components. */
+	protected void swap( final Location previous, final Location next ) {
+		// Enter first, so the counts never empty and the min and max scans always stop.
+		enter( next );
+		int fret = previous.getFret();
+		int string = previous.getString();
+		boundsScore -= ranker.fretBoundsScore( fret );
+		if ( 0 == --fretCounts[ fret - fretOffset ] ) {
+			while ( 0 == fretCounts[ lowestFret - fretOffset ] ) lowestFret++;
+			while ( 0 == fretCounts[ highestFret - fretOffset ] ) highestFret--;
+		}
+		if ( 0 == --stringCounts[ string - stringOffset ] ) {
+			uniqueStrings--;
+			while ( 0 == stringCounts[ lowestString - stringOffset ] ) lowestString++;
+			while ( 0 == stringCounts[ highestString - stringOffset ] ) highestString--;
+		}
+	}
+
+	protected final List<LocationList> variations;
+	protected final ChordRank ranker;
+	protected final Permutations permutations;
+	protected final Location [][] digits;
+	protected final long [] weights;
+
+	// Components of the current voicing.
+	protected final int fretOffset;
+	protected final int stringOffset;
+	protected final int [] fretCounts;
+	protected final int [] stringCounts;
+	protected int boundsScore = 0;
+	protected int uniqueStrings = 0;
+	protected int lowestFret = Integer.MAX_VALUE;
+	protected int highestFret = Integer.MIN_VALUE;
+	protected int lowestString = Integer.MAX_VALUE;
+	protected int highestString = Integer.MIN_VALUE;
+}
@@ -82,6 +82,24 @@ public class GuitarString implements Comparable<GuitarString> {
 		return compare;		
 	}
 	
+	/** Returns fret of given pitch. Returns NOFRET if pitch is null, < open note, or fret > maxFret. */
+	public int getFret( final Pitch pitch ) {
+		if ( null == pitch ) return NOFRET;
+		int compare = pitch.getAbsoluteValue() - openNote.getAbsoluteValue();
+		if (( compare < 0 ) || ( compare >= maxFret ))
+			return NOFRET;
+		return compare;
+	}
+
+	/** Returns the shared pitch of given fret, without making a Note. */
+	public Pitch getPitch( int fret ) {
+		if ( fret < 0 )
+			throw new IllegalArgumentException(  "Fret \"" + fret + "\" is less than 0.");
+		if ( fret > maxFret )
+			throw new IllegalArgumentException(  "Fret \"" + fret + "\" is greater than max fret " + maxFret + ".");
+		return Pitch.valueOf( openNote.getAbsoluteValue() + fret );
+	}
+
 	/** Returns note of given fret. */
 	public Note getNote( int fret ) {
 		if ( fret < 0 )
@@ -96,7 +114,7 @@ public class GuitarString implements Comparable<GuitarString> {
 		int count = 0;
 		if ( null != notes ) {
 			for ( int i = 0; i < notes.size(); i++ ) {
-				int freti = getFret( notes.get( i ) );
+				int freti = getFret( notes.getPitch( i ) );
 				if ( -1 != freti )
 					count++;
 			}
@@ -109,7 +127,7 @@ public class GuitarString implements Comparable<GuitarString> {
 		int count = 0;
 		if ( null != notes ) {
 			for ( int i = 0; i < notes.size(); i++ ) {
-				int freti = getFret( notes.get( i ) );
+				int freti = getFret( notes.getPitch( i ) );
 				if (( -1 != freti ) && ( freti >= lowFret ) && ( freti < highFret ))
 					count++;
 			}
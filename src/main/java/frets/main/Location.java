@@ -66,17 +66,10 @@ public class Location implements Comparable<Location> {
 	public Note getNote(final Fretboard fretboard) {
 		if (null == fretboard)
 			return null;
-		if ((0 > stringi) || (0 > freti))
-			return null;
-		if (stringi >= fretboard.getStringCount())
-			return null;
-
-		GuitarString guitarString = fretboard.getString(stringi);
-		if (null == guitarString)
+		int pitch = fretboard.getIndex().getPitch(stringi, freti);
+		if (FretboardIndex.NO_PITCH == pitch)
 			return null;
-		if (freti >= guitarString.getMaxFret())
-			return null;
-		return guitarString.getNote(freti);
+		return new Note(pitch);
 	}
 
 	@Override
@@ -156,13 +149,10 @@ public class Location implements Comparable<Location> {
 		if (stringi >= fretboard.getStringCount())
 			return null;
 
-		GuitarString guitarString = fretboard.getString(stringi);
-		if (null == guitarString)
-			return null;
-		if (freti >= guitarString.getMaxFret())
+		if (freti >= fretboard.getMaxFret(stringi))
 			return null;
 		
-		String openString = guitarString.getOpenNote().toString();
+		String openString = Pitch.valueOf(fretboard.getOpenPitch(stringi)).toString();
 		return openString + DELIM + freti;
 	}
 
@@ -238,6 +228,32 @@ public class Location implements Comparable<Location> {
 	public int absoluteValue() {
 		return 101 * stringi + freti;
 	}
+
+	/** Returns this location packed into one int. See {@link pack(int,int)}. */
+	public int pack() {
+		return pack( stringi, freti );
+	}
+
+	/** Packs a string and fret into one int, string in the high 16 bits, fret in the low 16 bits.
+	 * For non-negative frets, packed values sort in the same order as locations. */
+	public static int pack( int stringi, int freti ) {
+		return ( stringi << 16 ) | ( freti & 0xFFFF );
+	}
+
+	/** Returns the string of a packed location. */
+	public static int packedString( int packed ) {
+		return packed >> 16;
+	}
+
+	/** Returns the fret of a packed location. */
+	public static int packedFret( int packed ) {
+		return (short) packed;
+	}
+
+	/** Returns a new location from a packed location. */
+	public static Location unpack( int packed ) {
+		return new Location( packedString( packed ), packedFret( packed ) );
+	}
 	
 	protected int stringi;
 	protected int freti;
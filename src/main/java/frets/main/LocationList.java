@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * Encapsulates a group of locations.
@@ -20,6 +19,8 @@ import java.util.TreeSet;
  */
 public class LocationList implements List<Location>, Comparable<LocationList> {
 	public final static String DELIM = ",";
+	/** Strings 0 to MASK_STRINGS - 1 fit one long string mask, bit N for string N. */
+	public final static int MASK_STRINGS = Long.SIZE;
 	
 	public LocationList( ) {
 	}
@@ -101,7 +102,8 @@ public class LocationList implements List<Location>, Comparable<LocationList> {
 			return true;
 		if (obj == null)
 			return false;
-		if (getClass() != obj.getClass())
+		// Any backing store, for example PackedLocationList, compares by locations.
+		if (!(obj instanceof LocationList))
 			return false;
 		LocationList other = (LocationList) obj;
 		// internal test
@@ -314,67 +316,50 @@ public class LocationList implements List<Location>, Comparable<LocationList> {
 	}
 
 	// Information utilities
+	/** Returns the shape of these locations from one pass over them. The shape does not follow later changes. */
+	public Shape getShape() {
+		return new Shape( list );
+	}
+
+	/** Returns a bit mask of the strings these locations contain, bit N for string N.
+	 * Strings outside 0..MASK_STRINGS - 1 are not included. */
+	public long getStringMask() {
+		return getShape().getStringMask();
+	}
+
+	/** Returns the number of locations on a string already played by another location. */
+	public int getDuplicateStringCount() {
+		return getShape().getDuplicateStringCount();
+	}
+
 	/** Returns number of unique guitar strings these locations contain. */
 	public int getStringCount() {
-		Set<Integer> strings = new HashSet<Integer>();
-		for ( Location location: list ) {
-			strings.add( location.getString() );
-		}
-		return strings.size();				
+		return getShape().getStringCount();
 	}
 	
 	/** Returns false if multiple locations on one string. Otherwise true. */
 	public boolean uniqueStrings() {
-		List<Integer> strings = new LinkedList<Integer>();
-		for ( Location location: list ) {
-			if ( strings.contains( location.getString() ))
-				return false;
-			strings.add(location.getString() );
-		}
-		return true;				
+		return getShape().uniqueStrings();
 	}
 	
 	/** Returns the span of highest to lowest fret. */
 	public int fretSpan() {
-		int minFret = Integer.MAX_VALUE;
-		int maxFret = Integer.MIN_VALUE;
-		for ( Location location : list ) {
-			if ( location.getFret() < minFret ) minFret = location.getFret();
-			if ( location.getFret() > maxFret ) maxFret = location.getFret();
-		}
-		int span = maxFret - minFret;
-		if (span < 0)
-			throw new IllegalArgumentException( "Negative LocationList.fretSpan=" + span); 
-		return span;				
+		return getShape().fretSpan();
 	}
 	
 	/** Returns the span of highest to lowest string. */
 	public int stringSpan() {
-		int minstring = Integer.MAX_VALUE;
-		int maxstring = Integer.MIN_VALUE;
-		for ( Location location : list ) {
-			if ( location.getString() < minstring ) minstring = location.getString();
-			if ( location.getString() > maxstring ) maxstring = location.getString();
-		}
-		return Math.abs( maxstring - minstring );				
+		return getShape().stringSpan();
 	}
 	
 	/** Returns the min fret of the list. */
 	public int minFret() {
-		int minFret = Integer.MAX_VALUE;
-		for ( Location location : list ) {
-			if ( location.getFret() < minFret ) minFret = location.getFret();
-		}
-		return minFret;				
+		return getShape().minFret();
 	}
 	
 	/** Returns the max fret of the list. */
 	public int maxFret() {
-		int maxFret = Integer.MIN_VALUE;
-		for ( Location location : list ) {
-			if ( location.getFret() > maxFret ) maxFret = location.getFret();
-		}
-		return maxFret;				
+		return getShape().maxFret();
 	}
 	
 	/** Takes a location list and moves all locations up or down a given string interval. */
@@ -392,7 +377,7 @@ public class LocationList implements List<Location>, Comparable<LocationList> {
 			if ( newLocation < 0 ) {
 				throw new IllegalArgumentException( "Location " + location + " moved to fret " + newLocation + ", below min fret." );
 			}
-			if ( newLocation > fretboard.getString( location.getString()).getMaxFret() ) {
+			if ( newLocation > fretboard.getMaxFret( location.getString() )) {
 				throw new IllegalArgumentException( "Location " + location + " moved to fret " + newLocation + ", above max fret." );
 			}
 			location.setFret( location.getFret() + offset );
@@ -423,20 +408,12 @@ public class LocationList implements List<Location>, Comparable<LocationList> {
 	
 	/** Returns the min string of the list. */
 	public int minString() {
-		int minString = Integer.MAX_VALUE;
-		for ( Location location : list ) {
-			if ( location.getString() < minString ) minString = location.getString();
-		}
-		return minString;				
+		return getShape().minString();
 	}
 	
 	/** Returns the max string of the list. */
 	public int maxString() {
-		int maxString = Integer.MIN_VALUE;
-		for ( Location location : list ) {
-			if ( location.getString() > maxString ) maxString = location.getString();
-		}
-		return maxString;				
+		return getShape().maxString();
 	}
 	
 	/** Returns a sorted list of strings of this location list. */
@@ -521,19 +498,7 @@ public class LocationList implements List<Location>, Comparable<LocationList> {
 	 * @return
 	 */
 	public int getSkippedStringCount() {
-		Set<Integer> strings = new TreeSet<Integer>(); // ordered set
-		for ( Location location : list ) {
-			strings.add( location.getString() );
-		}
-		int score = 0;
-		int previous = Integer.MIN_VALUE;
-		for (Integer stringi : strings ) {
-			if ( previous == Integer.MIN_VALUE )
-				previous = stringi - 1;
-			score += ( stringi - previous ) - 1;
-			previous = stringi;
-		}
-		return score;
+		return getShape().getSkippedStringCount();
 	}
 	
 	/** Returns a note list indicating the notes for these locations. */
@@ -569,10 +534,16 @@ public class LocationList implements List<Location>, Comparable<LocationList> {
 		// These names are used rather than interval just to pick a preferred name.
 		StringBuffer sb = new StringBuffer();
 		
+		if (null == root) 
+			throw new IllegalArgumentException( "Need root to determine quality." );
+		FretboardIndex index = fretboard.getIndex();
+		int rootValue = root.getValue();
 		for ( int i = 0; i < list.size(); i ++ ) {
 			Location location = list.get( i );
-			Note currentNote = location.getNote( fretboard );
-   		    sb.append( currentNote.getQualityName( root ) );
+			int pitch = index.getPitch( location.getString(), location.getFret() );
+			if ( FretboardIndex.NO_PITCH == pitch )
+				throw new IllegalArgumentException( "Need note to determine quality." );
+   		    sb.append( Note.getQualityName( pitch, rootValue ) );
 			if ( i < list.size() - 1 ) {
 				sb.append( space );							
 			}
@@ -613,5 +584,133 @@ public class LocationList implements List<Location>, Comparable<LocationList> {
 		}
 	}
 	
+	/** The fret and string extent of a location list, from one pass over its locations.
+	 * Immutable, so scorers compute it once per list rather than once per method.
+	 */
+	public static class Shape {
+		protected Shape( final List<Location> locations ) {
+			int lowFret = Integer.MAX_VALUE;
+			int highFret = Integer.MIN_VALUE;
+			int lowString = Integer.MAX_VALUE;
+			int highString = Integer.MIN_VALUE;
+			long strings = 0L;
+			boolean fits = true;
+			int length = 0;
+			for ( Location location : locations ) {
+				int fret = location.getFret();
+				int string = location.getString();
+				if ( fret < lowFret ) lowFret = fret;
+				if ( fret > highFret ) highFret = fret;
+				if ( string < lowString ) lowString = string;
+				if ( string > highString ) highString = string;
+				if (( string >= 0 ) && ( string < MASK_STRINGS ))
+					strings |= 1L << string;
+				else
+					fits = false;
+				length++;
+			}
+			int unique = Long.bitCount( strings );
+			if ( !fits ) {
+				// Rare strings past the mask, count them in a second pass.
+				Set<Integer> all = new HashSet<Integer>();
+				for ( Location location : locations )
+					all.add( location.getString() );
+				unique = all.size();
+			}
+			this.size = length;
+			this.minFret = lowFret;
+			this.maxFret = highFret;
+			this.minString = lowString;
+			this.maxString = highString;
+			this.stringMask = strings;
+			this.masked = fits;
+			this.stringCount = unique;
+		}
+
+		/** Returns the number of locations. */
+		public int size() {
+			return size;
+		}
+
+		/** Returns the min fret, or Integer.MAX_VALUE for no locations. */
+		public int minFret() {
+			return minFret;
+		}
+
+		/** Returns the max fret, or Integer.MIN_VALUE for no locations. */
+		public int maxFret() {
+			return maxFret;
+		}
+
+		/** Returns the min string, or Integer.MAX_VALUE for no locations. */
+		public int minString() {
+			return minString;
+		}
+
+		/** Returns the max string, or Integer.MIN_VALUE for no locations. */
+		public int maxString() {
+			return maxString;
+		}
+
+		/** Returns the span of highest to lowest fret. */
+		public int fretSpan() {
+			int span = maxFret - minFret;
+			if (span < 0)
+				throw new IllegalArgumentException( "Negative LocationList.fretSpan=" + span); 
+			return span;
+		}
+
+		/** Returns the span of highest to lowest string. */
+		public int stringSpan() {
+			return Math.abs( maxString - minString );
+		}
+
+		/** Returns the string mask, bit N for string N. Strings outside 0..MASK_STRINGS - 1 are not included. */
+		public long getStringMask() {
+			return stringMask;
+		}
+
+		/** Returns true if every string fits the string mask. */
+		public boolean isMasked() {
+			return masked;
+		}
+
+		/** Returns the number of unique strings. */
+		public int getStringCount() {
+			return stringCount;
+		}
+
+		/** Returns the number of locations on a string already played by another location. */
+		public int getDuplicateStringCount() {
+			return size - stringCount;
+		}
+
+		/** Returns false if multiple locations on one string. Otherwise true. */
+		public boolean uniqueStrings() {
+			return size == stringCount;
+		}
+
+		/** Returns the number of interior strings not played. See {@link LocationList#getSkippedStringCount}. */
+		public int getSkippedStringCount() {
+			if ( 0 == size ) return 0;
+			return ( maxString - minString + 1 ) - stringCount;
+		}
+
+		@Override
+		public String toString() {
+			return "frets=" + minFret + ".." + maxFret + ",strings=" + minString + ".." + maxString + 
+				",mask=0x" + Long.toHexString( stringMask ) + ",duplicates=" + getDuplicateStringCount();
+		}
+
+		protected final int size;
+		protected final int minFret;
+		protected final int maxFret;
+		protected final int minString;
+		protected final int maxString;
+		protected final long stringMask;
+		protected final boolean masked;
+		protected final int stringCount;
+	}
+
 	protected List<Location> list = new LinkedList<Location>();
 }
\ No newline at end of file
@@ -164,6 +164,8 @@ public class Note implements Comparable<Note>{
 		return new Note( noteString );
 	}
 
+	// These names are used rather than interval just to pick a preferred name.
+	protected static final String [] INTERVAL_NAMES = { "R", "m2","2","b3","3","4","b5","5","m6","6","b7","7" };
 
     // Default notes of octave 0.
 	public static final Note C = new Note( Note.Name.C.getValue() );
@@ -309,21 +311,20 @@ public class Note implements Comparable<Note>{
 	 *    note="F5" root="F2" returns "R" 
 	 */
 	public static String getQualityName( final Note currentNote, final Note root ) {
-		// These names are used rather than interval just to pick a preferred name.
-		final String [] intervalNames = { "R", "m2","2","b3","3","4","b5","5","m6","6","b7","7" };
-		
 		if (null == currentNote) 
 			throw new IllegalArgumentException( "Need note to determine quality." );
 		if (null == root) 
 			throw new IllegalArgumentException( "Need root to determine quality." );
 		
-		int steps = currentNote.getValue() - root.getValue();
-		// System.out.println( "Note=" + currentNote + ", steps=" + steps );
-		while (steps < 0)
+		return getQualityName( currentNote.getValue(), root.getValue() );
+	}
+
+	/** Returns the interval/quality name of a note value or absolute value compared to a root value. */
+	public static String getQualityName( int value, int rootValue ) {
+		int steps = ( value - rootValue ) % 12;
+		if ( steps < 0 )
 			steps += 12;
-		while (steps >= intervalNames.length)
-			steps -= 12;
-   		return intervalNames[ steps ];
+   		return INTERVAL_NAMES[ steps ];
 	}
 
 	@Override
@@ -413,6 +414,11 @@ public class Note implements Comparable<Note>{
 	public int getAbsoluteValue() {
 		return 12 * iOctave + value;
 	}
+
+	/** Returns the immutable, shared pitch of this note. */
+	public Pitch toPitch() {
+		return Pitch.valueOf( getAbsoluteValue() );
+	}
 	
 	protected void normalize() {
 		// Assures value in the range 0..11.
@@ -1,30 +1,39 @@
 package frets.main;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Iterator;
 import java.util.ListIterator;
+import java.util.RandomAccess;
 
 /**
  * Encapsulates a group of notes.
  * Can be used as base for scales, chords, arpeggios, melodies.
  * Consider collections that have unique notes, sorted notes, repeated notes.
+ * <p>
+ * Notes are held as absolute values ({@link Note#getAbsoluteValue}) in an int array,
+ * so indexing is constant time and copies are an array copy. The List methods work on
+ * a view that makes a Note per get, so changing a Note from this list does not change
+ * the list, and adding a Note stores its value, not the Note.
  *
  * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
  */
 public class NoteList implements List<Note>, Comparable<NoteList> {
 	public static final String DELIM = ",";
+	/** Absolute value held for a null note. */
+	public static final int NO_NOTE = Integer.MIN_VALUE;
+	protected static final int INITIAL_CAPACITY = 8;
 	
 	public NoteList( ) {
 	}
 	
 	/** Make a new set, clone, without touching the original. */
 	public NoteList( final NoteList other ) {
-		// addAll( other );
 		if ( null != other ) {
-			for ( int i = 0; i < other.size(); i++ )
-				list.add( new Note( other.get( i ))); // deep copy
+			values = Arrays.copyOf( other.values, Math.max( other.size, INITIAL_CAPACITY )); // deep copy
+			size = other.size;
 		}
 	}
 	
@@ -113,9 +122,9 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	// Setters
 	public NoteList set( final NoteList other ) {
 		clear();
-		if ( null != other ) {
-			for ( int i = 0; i < other.size(); i++ )
-				list.add( new Note( other.get( i ))); // deep copy
+		if (( null != other ) && ( this != other )) {
+			values = Arrays.copyOf( other.values, Math.max( other.size, INITIAL_CAPACITY )); // deep copy
+			size = other.size;
 		}
 		return this;
 	}
@@ -156,10 +165,11 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	
 	@Override
 	public int hashCode() {
-		int prime = 17;
-		if ( null == list )
-			return prime;
-		return list.hashCode();
+		// Same as the List hash of the notes.
+		int hash = 1;
+		for ( int i = 0; i < size; i++ )
+			hash = 31 * hash + (( NO_NOTE == values[ i ] ) ? 0 : values[ i ] );
+		return hash;
 	}
 	
 	@Override
@@ -177,6 +187,11 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 		return (compare == 0);
 	}
 
+	/** Returns the pitch classes of these notes, from A. */
+	public PitchClassSet getPitchClassSet() {
+		return PitchClassSet.fromNotes( this );
+	}
+
 	@Override
 	public String toString() {
 		return toString( DELIM );
@@ -184,10 +199,9 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	
 	public String toString( String delim ) {
 		StringBuilder sb = new StringBuilder(  );
-		for( int i = 0; i < list.size(); i++ ) {
-			Note note = list.get( i );
-			sb.append(note.toString());
-			if ( i + 1 < list.size())
+		for( int i = 0; i < size; i++ ) {
+			sb.append( get( i ));
+			if ( i + 1 < size )
 			   sb.append( delim );			
 		}
 		return ( sb.toString());   		
@@ -230,34 +244,50 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	 * ABC < ABCD
 	 */
 	public int compareTo(NoteList o) {
-		if ((null == list) && (null == o.list))
-			return 0;
-		if ((null == list) && (null != o.list))
-			return -1;
-		if ((null != list) && (null == o.list))
-			return 1;
-		int shorter = list.size();
-		if ( o.list.size() < shorter )
-			shorter = o.list.size();
+		int shorter = size;
+		if ( o.size < shorter )
+			shorter = o.size;
 		// Note list should be of same size and order
 		for ( int i = 0; i < shorter; i ++ ) {
-		   Note a = list.get( i );
-		   Note b = o.list.get( i );
-		   int noteCompare = a.compareTo(b);
-		   if ( noteCompare != 0)
-			   return noteCompare;
+		   int a = values[ i ];
+		   int b = o.values[ i ];
+		   if ( a != b ) {
+			   // Null notes are lowest.
+			   if (( NO_NOTE == a ) || ( NO_NOTE == b ))
+				   return ( NO_NOTE == a ) ? -1 : 1;
+			   return a - b;
+		   }
 		}
         // Lists are equal for first N notes.
-		if (list.size() < o.list.size())
+		if (size < o.size)
 			return -2;
-		if (list.size() > o.list.size())
+		if (size > o.size)
 			return 2;
 		return 0;
 	}
 
+	/** Returns the absolute value of the note at the index, or NO_NOTE for a null note. Makes no Note. */
+	public int getAbsoluteValue( int index ) {
+		if (( index < 0 ) || ( index >= size ))
+			throw new IndexOutOfBoundsException( "Index " + index + ", size " + size );
+		return values[ index ];
+	}
+
+	/** Returns the shared pitch of the note at the index, or null for a null note. Makes no Note. */
+	public Pitch getPitch( int index ) {
+		int value = getAbsoluteValue( index );
+		return ( NO_NOTE == value ) ? null : Pitch.valueOf( value );
+	}
+
+	/** Returns a copy of the absolute values of the notes, NO_NOTE for a null note. */
+	public int [] toAbsoluteValues() {
+		return Arrays.copyOf( values, size );
+	}
+
 	// Collection API
 	public boolean add(Note o) {
-		return list.add(o);
+		add( size, o );
+		return true;
 	}
 
 	public boolean addAll(Collection<? extends Note> c) {
@@ -265,11 +295,11 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	}
 
 	public void clear() {
-		list.clear();
+		size = 0;
 	}
 
 	public boolean contains(Object o) {
-		return list.contains(o);
+		return -1 != indexOf(o);
 	}
 
 	public boolean containsAll(Collection<?> c) {
@@ -277,7 +307,7 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	}
 
 	public boolean isEmpty() {
-		return list.isEmpty();
+		return 0 == size;
 	}
 
 	public Iterator<Note> iterator() {
@@ -297,7 +327,7 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	}
 
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	public Object[] toArray() {
@@ -318,15 +348,30 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	}
 
 	public Note get(int index) {
-		return list.get(index);
+		int value = getAbsoluteValue( index );
+		return ( NO_NOTE == value ) ? null : new Note( value );
 	}
 
 	public int indexOf(Object o) {
-		return list.indexOf(o);
+		if (( null != o ) && !( o instanceof Note ))
+			return -1;
+		int value = getValue( (Note) o );
+		for ( int i = 0; i < size; i++ ) {
+			if ( values[ i ] == value )
+				return i;
+		}
+		return -1;
 	}
 
 	public int lastIndexOf(Object o) {
-		return list.lastIndexOf(o);
+		if (( null != o ) && !( o instanceof Note ))
+			return -1;
+		int value = getValue( (Note) o );
+		for ( int i = size - 1; i >= 0; i-- ) {
+			if ( values[ i ] == value )
+				return i;
+		}
+		return -1;
 	}
 
 	public ListIterator<Note> listIterator() {
@@ -354,9 +399,9 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	 * The remaining notes of this set are moved by that distance.
 	 */
 	public NoteList updateAbsolute( final Note root ) {
-		if (( null == list ) || (0 == this.size()) || ( null == root ))
+		if ((0 == size) || ( null == root ))
 			return this;
-		Note first = list.get( 0 );
+		Note first = get( 0 );
 		int distance = root.compareTo( first );
 		updateRelative( distance );
 		return this;
@@ -364,18 +409,18 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 	
 	/** Adjust all notes by the relative interval given. */
 	public NoteList updateRelative( final Note interval ) {
-		if (( null == list ) || (0 == this.size()) || ( null == interval ))
+		if ((0 == size) || ( null == interval ))
 			return this;
 		return updateRelative( interval.getAbsoluteValue() );
 	}
 
 	/** Adjust all notes by the relative interval given. */
 	public NoteList updateRelative( int interval ) {
-		if (( null == list ) || (0 == this.size()) || ( 0 == interval ))
+		if ((0 == size) || ( 0 == interval ))
 			return this;
-		for ( int i = 0; i < this.size(); i++ ) {
-			Note notei = list.get( i );
-			notei.plus( interval );
+		for ( int i = 0; i < size; i++ ) {
+			if ( NO_NOTE != values[ i ] )
+				values[ i ] += interval;
 		}
 		return this;
 	}
@@ -387,40 +432,25 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 
 	/** Get all note intervals relative to the first note. */
 	public NoteList getAbsoluteIntervalNotes() {
-		if (null == list)
-			return null;
 		NoteList intervals = new NoteList();
-		Note first = null;
-		for (int i = 0; i < list.size(); i++) {
-			if ( 0 == i ) 
-				first = list.get(i);
-			intervals.add( new Note( first ).plus( list.get(i).getAbsoluteValue() - first.getAbsoluteValue()) );
-		}
+		for (int i = 0; i < size; i++)
+			intervals.add( new Note( values[ i ] ));
 		return intervals;
 	}
 	
 	/** Get all note intervals relative to the first note. */
 	public int[] getAbsoluteIntervals() {
-		if (null == list)
-			return null;
-		int [] intervals = new int[list.size()];
-		int first = 0;
-		for (int i = 0; i < list.size(); i++) {
-			if ( 0 == i )
-				first = list.get(i).getAbsoluteValue();
-			intervals[ i ] = list.get(i).getAbsoluteValue() - first;
-		}
+		int [] intervals = new int[size];
+		for (int i = 0; i < size; i++)
+			intervals[ i ] = values[ i ] - values[ 0 ];
 		return intervals;
 	}
 	
 	public String toStringIntervals() {
 		StringBuilder sb = new StringBuilder( "[" );
-		if ( null != list ) {
-		   int first = list.get( 0 ).getAbsoluteValue();
-		   for ( int i = 0; i < list.size(); i++ ) {
-			   if ( i > 0 ) sb.append( DELIM );
-			   sb.append( list.get( i ).getAbsoluteValue() - first );
-		   }
+		for ( int i = 0; i < size; i++ ) {
+			if ( i > 0 ) sb.append( DELIM );
+			sb.append( values[ i ] - values[ 0 ] );
 		}
 		sb.append( "]" );
 		return sb.toString();
@@ -428,30 +458,77 @@ public class NoteList implements List<Note>, Comparable<NoteList> {
 
 	/** Get all note intervals relative to the previous note. */
 	public int [] getRelativeIntervals() {
-		if ( null == list) return null;
-		int [] intervals = new int[ list.size() ];
-	    int previous = list.get( 0 ).getAbsoluteValue();
-		   for ( int i = 0; i < list.size(); i++ ) {
-			   intervals[ i ] = list.get( i ).getAbsoluteValue() - previous;
-			   previous = list.get( i ).getAbsoluteValue();
-		   }
+		int [] intervals = new int[ size ];
+		for ( int i = 1; i < size; i++ )
+			intervals[ i ] = values[ i ] - values[ i - 1 ];
 		return intervals;
 	}
 	
 	public String toStringRelativeIntervals() {
 		StringBuilder sb = new StringBuilder( "[" );
-		if ( null != list ) {
-		   int previous = list.get( 0 ).getAbsoluteValue();
-		   for ( int i = 0; i < list.size(); i++ ) {
-			   if ( i > 0 ) sb.append( DELIM );
-			   sb.append( list.get( i ).getAbsoluteValue() - previous );
-			   previous = list.get( i ).getAbsoluteValue();
-		   }
+		for ( int i = 0; i < size; i++ ) {
+			if ( i > 0 ) sb.append( DELIM );
+			sb.append(( i > 0 ) ? values[ i ] - values[ i - 1 ] : 0 );
 		}
 		sb.append( "]" );
 		return sb.toString();
 	}
 
+	/** Returns the absolute value held for a note. */
+	protected static int getValue( final Note note ) {
+		return ( null == note ) ? NO_NOTE : note.getAbsoluteValue();
+	}
+
+	/** A List view of the values, for iterators, sub lists and bulk changes. */
+	protected class Notes extends AbstractList<Note> implements RandomAccess {
+		@Override
+		public Note get( int index ) {
+			return NoteList.this.get( index );
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Note set( int index, Note element ) {
+			Note previous = NoteList.this.get( index );
+			values[ index ] = getValue( element );
+			return previous;
+		}
+
+		@Override
+		public void add( int index, Note element ) {
+			if (( index < 0 ) || ( index > size ))
+				throw new IndexOutOfBoundsException( "Index " + index + ", size " + size );
+			if ( size == values.length )
+				values = Arrays.copyOf( values, 2 * values.length );
+			System.arraycopy( values, index, values, index + 1, size - index );
+			values[ index ] = getValue( element );
+			size++;
+			modCount++;
+		}
+
+		@Override
+		public Note remove( int index ) {
+			Note previous = NoteList.this.get( index );
+			System.arraycopy( values, index + 1, values, index, size - index - 1 );
+			size--;
+			modCount++;
+			return previous;
+		}
+
+		@Override
+		protected void removeRange( int fromIndex, int toIndex ) {
+			System.arraycopy( values, toIndex, values, fromIndex, size - toIndex );
+			size -= toIndex - fromIndex;
+			modCount++;
+		}
+	}
+
 	// Fields
-	protected List<Note> list = new LinkedList<Note>();
+	protected int [] values = new int[ INITIAL_CAPACITY ];
+	protected int size = 0;
+	protected final List<Note> list = new Notes();
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package frets.main;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A LocationList that stores each location as one packed int ({@link Location#pack})
+ * in a growable array rather than as Location objects in a linked list.
+ * <p>
+ * Indexed access is constant time, and a list of N locations is one array
+ * rather than N Location objects and N list nodes. The List API is unchanged,
+ * but get, iterator and the other views return new Location instances built
+ * from the packed values. Changing a returned Location does not change this list,
+ * use set or the transpose methods instead. The packed accessors read and write
+ * the ints directly without allocation.
+ * <p>
+ * Frets are kept in 16 bits, enough for any fretboard and {@link GuitarString#NOFRET}.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class PackedLocationList extends LocationList {
+	public static final int DEFAULT_CAPACITY = 8;
+
+	public PackedLocationList() {
+		this( DEFAULT_CAPACITY );
+	}
+
+	public PackedLocationList( int capacity ) {
+		super();
+		packed = new PackedLocations( capacity );
+		list = packed;
+	}
+
+	/** Make a new list, copying the locations of the other. */
+	public PackedLocationList( final Collection<? extends Location> other ) {
+		this( null == other ? DEFAULT_CAPACITY : other.size() );
+		if ( null != other ) {
+			for ( Location location : other )
+				add( location );
+		}
+	}
+
+	/** Make a new list, copying the locations of the other. */
+	public PackedLocationList( final Location ... other ) {
+		this( null == other ? DEFAULT_CAPACITY : other.length );
+		if ( null != other ) {
+			for ( int i = 0; i < other.length; i++ )
+				add( other[ i ] );
+		}
+	}
+
+	/** Returns the packed location at the index. */
+	public int getPacked( int index ) {
+		packed.check( index, packed.size );
+		return packed.values[ index ];
+	}
+
+	/** Replaces the packed location at the index, returning the previous packed location. */
+	public int setPacked( int index, int value ) {
+		packed.check( index, packed.size );
+		int previous = packed.values[ index ];
+		packed.values[ index ] = value;
+		return previous;
+	}
+
+	/** Appends a packed location. */
+	public void addPacked( int value ) {
+		packed.insert( packed.size, value );
+	}
+
+	/** Returns the string of the location at the index. */
+	public int getString( int index ) {
+		return Location.packedString( getPacked( index ));
+	}
+
+	/** Returns the fret of the location at the index. */
+	public int getFret( int index ) {
+		return Location.packedFret( getPacked( index ));
+	}
+
+	/** Returns a copy of the packed locations. */
+	public int [] toPackedArray() {
+		return Arrays.copyOf( packed.values, packed.size );
+	}
+
+	@Override
+	public void transposeFrets( int offset ) {
+		for ( int i = 0; i < packed.size; i++ )
+			packed.values[ i ] = Location.pack( getString( i ), getFret( i ) + offset );
+	}
+
+	@Override
+	public void transposeFrets( final Fretboard fretboard, int freti ) {
+		int offset = freti -  minFret();
+		for ( int i = 0; i < packed.size; i++ ) {
+			int newLocation = getFret( i ) + offset;
+			if ( newLocation < 0 ) {
+				throw new IllegalArgumentException( "Location " + get( i ) + " moved to fret " + newLocation + ", below min fret." );
+			}
+			if ( newLocation > fretboard.getMaxFret( getString( i ))) {
+				throw new IllegalArgumentException( "Location " + get( i ) + " moved to fret " + newLocation + ", above max fret." );
+			}
+		}
+		transposeFrets( offset );
+	}
+
+	@Override
+	public void transposeStrings( int offset ) {
+		for ( int i = 0; i < packed.size; i++ )
+			packed.values[ i ] = Location.pack( getString( i ) + offset, getFret( i ) );
+	}
+
+	@Override
+	public void transposeStrings( final Fretboard fretboard, int stringi ) {
+		int offset = stringi -  minString();
+		for ( int i = 0; i < packed.size; i++ ) {
+			int newLocation = getString( i ) + offset;
+			if ( newLocation < 0 ) {
+				throw new IllegalArgumentException( "Location " + get( i ) + " moved to string " + newLocation + ", below min string." );
+			}
+			if ( newLocation > fretboard.getStringCount() ) {
+				throw new IllegalArgumentException( "Location " + get( i ) + " moved to string " + newLocation + ", above max string." );
+			}
+		}
+		transposeStrings( offset );
+	}
+
+	/** The List view of the packed array. Returns new Location instances. */
+	protected static class PackedLocations extends AbstractList<Location> implements RandomAccess {
+		protected PackedLocations( int capacity ) {
+			values = new int[ Math.max( capacity, 1 ) ];
+		}
+
+		@Override
+		public Location get( int index ) {
+			check( index, size );
+			return Location.unpack( values[ index ] );
+		}
+
+		@Override
+		public Location set( int index, Location element ) {
+			check( index, size );
+			int previous = values[ index ];
+			values[ index ] = element.pack();
+			return Location.unpack( previous );
+		}
+
+		@Override
+		public void add( int index, Location element ) {
+			check( index, size + 1 );
+			insert( index, element.pack() );
+		}
+
+		@Override
+		public Location remove( int index ) {
+			check( index, size );
+			int previous = values[ index ];
+			System.arraycopy( values, index + 1, values, index, size - index - 1 );
+			size--;
+			modCount++;
+			return Location.unpack( previous );
+		}
+
+		@Override
+		public void clear() {
+			size = 0;
+			modCount++;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		protected void insert( int index, int value ) {
+			if ( size == values.length )
+				values = Arrays.copyOf( values, values.length * 2 );
+			System.arraycopy( values, index, values, index + 1, size - index );
+			values[ index ] = value;
+			size++;
+			modCount++;
+		}
+
+		protected void check( int index, int limit ) {
+			if (( index < 0 ) || ( index >= limit ))
+				throw new IndexOutOfBoundsException( "Index " + index + ", size " + size + "." );
+		}
+
+		protected int [] values;
+		protected int size;
+	}
+
+	protected final PackedLocations packed;
+}
@@ -0,0 +1,236 @@
+package frets.main;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Identifies one permutation of a variation list by its mixed-radix digits,
+ * one digit per non-empty variation list, rather than by a long permutation number.
+ * <p>
+ * Digit 0 is the least significant, the first non-empty variation list, as in
+ * {@link Fretboard#getPermutation}. Since the digits are kept separately, an ID never
+ * overflows, and {@link getNumberExact} gives the permutation number of any size.
+ * {@link getNumber} returns a long and throws if the number does not fit.
+ * <p>
+ * The string form lists the digits, then the radices, most significant first,
+ * separated by {@link DIGIT_DELIM}, for example "0.3.12/2.5.14".
+ * Any radix prints without ambiguity, and the string parses back with {@link parse}.
+ * IDs are immutable. {@link next} steps a cursor through the permutation space.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class PermutationId implements Comparable<PermutationId> {
+	public static final String DIGIT_DELIM = ".";
+	public static final String RADIX_DELIM = "/";
+
+	/** Makes an ID from digits and radices, least significant first. */
+	public PermutationId( final int [] digits, final int [] radices ) {
+		if (( null == digits ) || ( null == radices ) || ( digits.length != radices.length ))
+			throw new IllegalArgumentException( "Digits " + Arrays.toString( digits ) + " do not match radices " + Arrays.toString( radices ) + "." );
+		for ( int i = 0; i < digits.length; i++ ) {
+			if (( radices[ i ] < 1 ) || ( digits[ i ] < 0 ) || ( digits[ i ] >= radices[ i ] ))
+				throw new IllegalArgumentException( "Digit " + i + " value " + digits[ i ] + " is outside radix " + radices[ i ] + "." );
+		}
+		this.digits = digits.clone();
+		this.radices = radices.clone();
+	}
+
+	/** Returns the radices of the variations, the sizes of the non-empty variation lists, least significant first. */
+	public static int [] getRadices( final List<LocationList> variations ) {
+		return Permutations.getRadices( Permutations.getDigits( variations ));
+	}
+
+	/** Returns the ID of the given permutation number of the variations. */
+	public static PermutationId getInstance( final List<LocationList> variations, long number ) {
+		return getInstance( variations, BigInteger.valueOf( number ));
+	}
+
+	/** Returns the ID of the given permutation number of the variations. */
+	public static PermutationId getInstance( final List<LocationList> variations, final BigInteger number ) {
+		int [] radices = getRadices( variations );
+		if (( number.signum() < 0 ) || ( number.compareTo( getCount( radices )) >= 0 ))
+			throw new IllegalArgumentException( "Permutation " + number + " is outside [0," + getCount( radices ) + ")." );
+		int [] digits = new int[ radices.length ];
+		BigInteger remainder = number;
+		for ( int i = 0; i < radices.length; i++ ) {
+			BigInteger [] qr = remainder.divideAndRemainder( BigInteger.valueOf( radices[ i ] ));
+			digits[ i ] = qr[ 1 ].intValue();
+			remainder = qr[ 0 ];
+		}
+		return new PermutationId( digits, radices );
+	}
+
+	/** Returns the ID of the given locations, the inverse of {@link getLocations}.
+	 * Returns null if the locations are not a permutation of the variations. */
+	public static PermutationId getInstance( final List<LocationList> variations, final LocationList locations ) {
+		Location [][] choices = Permutations.getDigits( variations );
+		if (( null == locations ) || ( locations.size() != choices.length ) || ( 0 == choices.length ))
+			return null;
+		int [] digits = new int[ choices.length ];
+		for ( int i = 0; i < choices.length; i++ ) {
+			// Locations are most significant first.
+			digits[ i ] = Arrays.asList( choices[ i ] ).indexOf( locations.get( choices.length - 1 - i ));
+			if ( -1 == digits[ i ] )
+				return null;
+		}
+		return new PermutationId( digits, Permutations.getRadices( choices ));
+	}
+
+	/** Returns the permutation count of the radices. Zero when there are no radices. */
+	public static BigInteger getCount( final int [] radices ) {
+		if ( 0 == radices.length )
+			return BigInteger.ZERO;
+		BigInteger count = BigInteger.ONE;
+		for ( int radix : radices )
+			count = count.multiply( BigInteger.valueOf( radix ));
+		return count;
+	}
+
+	/** Returns the number of permutations of this ID's variations. */
+	public BigInteger getCount() {
+		return getCount( radices );
+	}
+
+	public int getDigitCount() {
+		return digits.length;
+	}
+
+	/** Returns digit i, least significant first. */
+	public int getDigit( int i ) {
+		return digits[ i ];
+	}
+
+	/** Returns radix i, least significant first. */
+	public int getRadix( int i ) {
+		return radices[ i ];
+	}
+
+	/** Returns the permutation number, of any size. */
+	public BigInteger getNumberExact() {
+		BigInteger number = BigInteger.ZERO;
+		for ( int i = digits.length - 1; i >= 0; i-- )
+			number = number.multiply( BigInteger.valueOf( radices[ i ] )).add( BigInteger.valueOf( digits[ i ] ));
+		return number;
+	}
+
+	/** Returns whether the permutation number fits in a long. */
+	public boolean isLong() {
+		return getNumberExact().bitLength() < Long.SIZE;
+	}
+
+	/** Returns the permutation number as a long. Throws if it does not fit. */
+	public long getNumber() {
+		long number = 0;
+		for ( int i = digits.length - 1; i >= 0; i-- ) {
+			if ( number > ( Long.MAX_VALUE - digits[ i ] ) / radices[ i ] )
+				throw new IllegalArgumentException( "Permutation " + this + " overflows a long. Use getNumberExact." );
+			number = number * radices[ i ] + digits[ i ];
+		}
+		return number;
+	}
+
+	/** Returns the ID of the next permutation number, or null if this is the last. */
+	public PermutationId next() {
+		int [] nextDigits = digits.clone();
+		for ( int i = 0; i < nextDigits.length; i++ ) {
+			if ( ++nextDigits[ i ] < radices[ i ] )
+				return new PermutationId( nextDigits, radices );
+			nextDigits[ i ] = 0;
+		}
+		return null;
+	}
+
+	/** Returns the locations of this ID, the same as {@link Fretboard#getPermutation}.
+	 * Locations are shared with the variations. */
+	public LocationList getLocations( final List<LocationList> variations ) {
+		Location [][] choices = Permutations.getDigits( variations );
+		if ( !Arrays.equals( radices, Permutations.getRadices( choices )))
+			throw new IllegalArgumentException( "Permutation " + this + " does not match the variations." );
+		LocationList locations = new LocationList();
+		for ( int i = 0; i < choices.length; i++ )
+			locations.add( 0, choices[ i ][ digits[ i ] ] );
+		return locations;
+	}
+
+	/** Orders IDs of the same radices by permutation number. Equal digits of other radices
+	 * order by radices, most significant first, so compareTo is 0 only when equals is true.
+	 */
+	public int compareTo( PermutationId o ) {
+		if ( digits.length != o.digits.length )
+			return digits.length - o.digits.length;
+		for ( int i = digits.length - 1; i >= 0; i-- ) {
+			if ( digits[ i ] != o.digits[ i ] )
+				return digits[ i ] - o.digits[ i ];
+		}
+		for ( int i = radices.length - 1; i >= 0; i-- ) {
+			if ( radices[ i ] != o.radices[ i ] )
+				return radices[ i ] - o.radices[ i ];
+		}
+		return 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode( digits ) + Arrays.hashCode( radices );
+	}
+
+	@Override
+	public boolean equals( Object obj ) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		PermutationId other = (PermutationId) obj;
+		return Arrays.equals( digits, other.digits ) && Arrays.equals( radices, other.radices );
+	}
+
+	/** Returns the digits, then the radices, most significant first, for example "0.3.12/2.5.14". */
+	@Override
+	public String toString() {
+		return toString( digits ) + RADIX_DELIM + toString( radices );
+	}
+
+	/** Returns the values most significant first, separated by {@link DIGIT_DELIM}. */
+	public static String toString( final int [] values ) {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = values.length - 1; i >= 0; i-- ) {
+			sb.append( values[ i ] );
+			if ( i > 0 )
+				sb.append( DIGIT_DELIM );
+		}
+		return sb.toString();
+	}
+
+	/** Makes an ID from a String produced by toString of this class. */
+	public static PermutationId parse( String idString ) {
+		if ( null == idString )
+			throw new IllegalArgumentException( "Bad permutation id string=" + idString );
+		int radixi = idString.indexOf( RADIX_DELIM );
+		if (( radixi < 0 ) || ( radixi != idString.lastIndexOf( RADIX_DELIM )))
+			throw new IllegalArgumentException( "Bad permutation id string=" + idString );
+		return new PermutationId( parseValues( idString.substring( 0, radixi ).trim() ),
+			parseValues( idString.substring( radixi + 1 ).trim() ));
+	}
+
+	/** Parses values separated by {@link DIGIT_DELIM}, most significant first, returning them least significant first. */
+	public static int [] parseValues( String valuesString ) {
+		if ( 0 == valuesString.length() )
+			return new int[ 0 ];
+		String [] tokens = valuesString.split( "[" + DIGIT_DELIM + "]", -1 );
+		int [] values = new int[ tokens.length ];
+		for ( int i = 0; i < tokens.length; i++ ) {
+			try {
+				values[ tokens.length - 1 - i ] = Integer.parseInt( tokens[ i ].trim() );
+			} catch ( NumberFormatException e ) {
+				throw new IllegalArgumentException( "Bad permutation value \"" + tokens[ i ] + "\" in " + valuesString );
+			}
+		}
+		return values;
+	}
+
+	protected final int [] digits;
+	protected final int [] radices;
+}
@@ -0,0 +1,196 @@
+package frets.main;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy view of all the permutations of a variation list.
+ * <p>
+ * Given the variations returned by {@link Fretboard#getVariations}, this
+ * produces the same location lists, in the same order, as calling
+ * {@link Fretboard#getPermutation} for each index from 0 to
+ * {@link Fretboard#getPermutationCount}. Rather than rebuilding each
+ * permutation from its index, the iterator advances a mixed-radix odometer
+ * one digit at a time, so callers can filter or stop early without
+ * holding the permutation space in memory.
+ * <p>
+ * When reuse is requested, the iterator returns the same scratch LocationList
+ * on each call to next, updated in place. Copy it with
+ * {@link LocationList#LocationList(LocationList)} if it must be kept.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class Permutations implements Iterable<LocationList> {
+
+	/** Iterates permutations, returning a new LocationList for each. */
+	public Permutations( final List<LocationList> variations ) {
+		this( variations, false );
+	}
+
+	/** Iterates permutations, optionally returning one reused scratch LocationList. */
+	public Permutations( final List<LocationList> variations, boolean reuse ) {
+		this.reuse = reuse;
+		digits = getDigits( variations );
+		count = Fretboard.getPermutationCount( variations );
+	}
+
+	/** Returns the locations of each non-empty variation list, one digit per list.
+	 * Digit 0 is the least significant, the first non-empty variation list, as in {@link Fretboard#getPermutation}.
+	 * Locations are shared with the variations.
+	 */
+	public static Location [][] getDigits( final List<LocationList> variations ) {
+		int digitCount = 0;
+		if ( null != variations ) {
+			for ( LocationList enharmonics : variations ) {
+				if (( null != enharmonics ) && ( 0 < enharmonics.size() ))
+					digitCount++;
+			}
+		}
+		Location [][] digits = new Location[ digitCount ][];
+		int digiti = 0;
+		if ( null != variations ) {
+			for ( LocationList enharmonics : variations ) {
+				if (( null != enharmonics ) && ( 0 < enharmonics.size() ))
+					digits[ digiti++ ] = enharmonics.toArray( new Location[ enharmonics.size() ] );
+			}
+		}
+		return digits;
+	}
+
+	/** Returns the radix of each digit, its location count, least significant first. */
+	public static int [] getRadices( final Location [][] digits ) {
+		int [] radices = new int[ digits.length ];
+		for ( int digiti = 0; digiti < digits.length; digiti++ )
+			radices[ digiti ] = digits[ digiti ].length;
+		return radices;
+	}
+
+	/** Returns the permutation number weight of each digit, the product of the radices below it. */
+	public static long [] getWeights( final Location [][] digits ) {
+		long [] weights = new long[ digits.length ];
+		long weight = 1;
+		for ( int digiti = 0; digiti < digits.length; digiti++ ) {
+			weights[ digiti ] = weight;
+			weight *= digits[ digiti ].length;
+		}
+		return weights;
+	}
+
+	/** Returns true if every location of the digits is on a string of a {@link LocationList#getStringMask}. */
+	public static boolean fitsStringMask( final Location [][] digits ) {
+		for ( Location [] digit : digits ) {
+			for ( Location location : digit ) {
+				if (( location.getString() < 0 ) || ( location.getString() >= LocationList.MASK_STRINGS ))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/** Returns the total number of permutations, the same as {@link Fretboard#getPermutationCount}. */
+	public long getCount() {
+		return count;
+	}
+
+	/** Returns whether next returns one LocationList updated in place. */
+	public boolean isReuse() {
+		return reuse;
+	}
+
+	/** Returns a new LocationList of the given permutation number, the same as {@link Fretboard#getPermutation}.
+	 * Locations are shared with the variations. */
+	public LocationList get( long permutation ) {
+		if (( permutation < 0 ) || ( permutation >= count ))
+			throw new IllegalArgumentException( "Permutation " + permutation + " is outside [0," + count + ")." );
+		LocationList locations = new LocationList();
+		long remainder = permutation;
+		for ( int digiti = 0; digiti < digits.length; digiti++ ) {
+			locations.add( 0, digits[ digiti ][ (int) ( remainder % digits[ digiti ].length ) ] );
+			remainder /= digits[ digiti ].length;
+		}
+		return locations;
+	}
+
+	public PermutationIterator iterator() {
+		return new PermutationIterator( 0, count );
+	}
+
+	/** Returns an iterator over permutation numbers from (inclusive) to (exclusive).
+	 * Ranges may be iterated independently, for example on separate threads.
+	 */
+	public PermutationIterator iterator( long from, long to ) {
+		if (( from < 0 ) || ( to > count ) || ( from > to ))
+			throw new IllegalArgumentException( "Permutation range [" + from + "," + to + ") is outside [0," + count + ")." );
+		return new PermutationIterator( from, to );
+	}
+
+	/**
+	 * An odometer over the permutation digits.
+	 * Also reports the permutation number of the last returned location list.
+	 */
+	public class PermutationIterator implements Iterator<LocationList> {
+		protected PermutationIterator( long from, long to ) {
+			counters = new int[ digits.length ];
+			// Split the first permutation number into its digits.
+			long remainder = from;
+			for ( int digiti = 0; digiti < digits.length; digiti++ ) {
+				counters[ digiti ] = (int) ( remainder % digits[ digiti ].length );
+				remainder /= digits[ digiti ].length;
+			}
+			permutation = from - 1;
+			end = to;
+		}
+
+		public boolean hasNext() {
+			return permutation + 1 < end;
+		}
+
+		public LocationList next() {
+			if ( !hasNext() )
+				throw new NoSuchElementException( "Permutation " + ( permutation + 1 ) + " of " + end + "." );
+			int last = digits.length - 1;
+			if ( null == scratch ) {
+				// First permutation of the range.
+				scratch = new LocationList();
+				for ( int digiti = last; digiti >= 0; digiti-- )
+					scratch.add( digits[ digiti ][ counters[ digiti ] ] );
+			} else {
+				if ( !reuse ) {
+					// Shallow copy. Like getPermutation, locations are shared with the variations.
+					LocationList copy = new LocationList();
+					copy.addAll( scratch );
+					scratch = copy;
+				}
+				// Roll the odometer. Output position is the reverse of the digit position.
+				int digiti = 0;
+				while ( ++counters[ digiti ] == digits[ digiti ].length ) {
+					counters[ digiti ] = 0;
+					scratch.set( last - digiti, digits[ digiti ][ 0 ] );
+					digiti++;
+				}
+				scratch.set( last - digiti, digits[ digiti ][ counters[ digiti ] ] );
+			}
+			permutation++;
+			return scratch;
+		}
+
+		/** Returns the permutation number of the last returned location list, or one less than the first before it is returned. */
+		public long getPermutationNumber() {
+			return permutation;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException( "Permutations are read only." );
+		}
+
+		protected int [] counters;
+		protected long permutation;
+		protected long end;
+		protected LocationList scratch;
+	}
+
+	protected final Location [][] digits;
+	protected final long count;
+	protected final boolean reuse;
+}
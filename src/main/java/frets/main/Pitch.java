@@ -0,0 +1,145 @@
+package frets.main;
+
+/**
+ * An immutable note, an absolute value such as {@link Note#getAbsoluteValue}.
+ * <p>
+ * Unlike {@link Note}, a pitch never changes, so pitches may be shared freely, across
+ * threads and as constants, without defensive copies. Every pitch of octaves 0 to
+ * {@link MAX_OCTAVE} is made once, which covers every fretboard, so {@link valueOf}
+ * and arithmetic in that range return the shared instance and do not allocate.
+ * Pitches outside the range are made as needed and are still equal by value.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public final class Pitch implements Comparable<Pitch> {
+	public static final int OCTAVE = 12;
+	public static final int MAX_OCTAVE = 10;
+	/** Lowest and highest interned absolute values. */
+	public static final int MIN_INTERNED = 0;
+	public static final int MAX_INTERNED = ( MAX_OCTAVE + 1 ) * OCTAVE - 1;
+
+	protected static final Pitch [] PITCHES = new Pitch[ MAX_INTERNED - MIN_INTERNED + 1 ];
+	static {
+		for ( int value = MIN_INTERNED; value <= MAX_INTERNED; value++ )
+			PITCHES[ value - MIN_INTERNED ] = new Pitch( value );
+	}
+
+	public static final Pitch GuitarLowE = valueOf( Note.GuitarLowE );
+	public static final Pitch GuitarA = valueOf( Note.GuitarA );
+	public static final Pitch GuitarD = valueOf( Note.GuitarD );
+	public static final Pitch GuitarG = valueOf( Note.GuitarG );
+	public static final Pitch GuitarB = valueOf( Note.GuitarB );
+	public static final Pitch GuitarHighE = valueOf( Note.GuitarHighE );
+
+	private Pitch( int absoluteValue ) {
+		this.absoluteValue = absoluteValue;
+	}
+
+	/** Returns the pitch of the absolute value, the shared instance when interned. */
+	public static Pitch valueOf( int absoluteValue ) {
+		if (( absoluteValue >= MIN_INTERNED ) && ( absoluteValue <= MAX_INTERNED ))
+			return PITCHES[ absoluteValue - MIN_INTERNED ];
+		return new Pitch( absoluteValue );
+	}
+
+	/** Returns the pitch of the octave and note value, 0..11 from A as {@link Note#getValue}. */
+	public static Pitch valueOf( int octave, int value ) {
+		return valueOf( octave * OCTAVE + value );
+	}
+
+	/** Returns the pitch of the note, or null for a null note. */
+	public static Pitch valueOf( final Note note ) {
+		if ( null == note )
+			return null;
+		return valueOf( note.getAbsoluteValue() );
+	}
+
+	/** Returns the pitch of a string such as "C#4", as {@link Note#Note(String)}. */
+	public static Pitch parse( String toString ) {
+		return valueOf( new Note( toString ));
+	}
+
+	/** Returns true if this pitch is the shared instance of its value. */
+	public boolean isInterned() {
+		return ( absoluteValue >= MIN_INTERNED ) && ( absoluteValue <= MAX_INTERNED );
+	}
+
+	public int getAbsoluteValue() {
+		return absoluteValue;
+	}
+
+	/** Returns the note value 0..11 from A, as {@link Note#getValue}. */
+	public int getValue() {
+		return PitchClassSet.getPitchClass( absoluteValue );
+	}
+
+	public int getOctave() {
+		return ( absoluteValue - getValue() ) / OCTAVE;
+	}
+
+	/** Returns the pitch this many semitones higher. */
+	public Pitch plus( int interval ) {
+		return ( 0 == interval ) ? this : valueOf( absoluteValue + interval );
+	}
+
+	public Pitch plus( final Interval interval ) {
+		return plus( interval.getValue() );
+	}
+
+	/** Returns the pitch this many semitones lower. */
+	public Pitch minus( int interval ) {
+		return plus( -interval );
+	}
+
+	public Pitch minus( final Interval interval ) {
+		return minus( interval.getValue() );
+	}
+
+	/** Returns the semitones from the other pitch up to this one. */
+	public int minus( final Pitch other ) {
+		return absoluteValue - other.absoluteValue;
+	}
+
+	/** Returns a new, mutable note of this pitch. */
+	public Note toNote() {
+		return new Note( getOctave(), getValue() );
+	}
+
+	/** Return note short name, no octave. */
+	public String getName() {
+		return Note.Name.getName( getValue() ).toString();
+	}
+
+	public boolean hasAccidental() {
+		return Note.Name.getName( getValue() ).hasAccidental();
+	}
+
+	/** Returns difference in diatonic steps, as {@link Note#compareTo}. */
+	@Override
+	public int compareTo( final Pitch o ) {
+		return absoluteValue - o.absoluteValue;
+	}
+
+	@Override
+	public int hashCode() {
+		return absoluteValue;
+	}
+
+	@Override
+	public boolean equals( Object obj ) {
+		if ( this == obj )
+			return true;
+		if ( !( obj instanceof Pitch ))
+			return false;
+		return absoluteValue == (( Pitch ) obj ).absoluteValue;
+	}
+
+	/** Return note name, accidental, octave, as {@link Note#toString}. */
+	@Override
+	public String toString() {
+		int octave = getOctave();
+		return ( 0 == octave ) ? getName() : getName() + octave;
+	}
+
+	protected final int absoluteValue;
+}
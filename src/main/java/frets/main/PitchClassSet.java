@@ -0,0 +1,352 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * An immutable set of the 12 pitch classes, held as the low 12 bits of an int.
+ * <p>
+ * Bit n is set when pitch class n is in the set. Sets from notes count from A, as
+ * {@link Note#getValue}. Sets from formulas and intervals count from the root, so
+ * bit 0 is the root. Transposition is a bit rotation, and subset, union and
+ * intersection are single bitwise operations. The static int methods do the same
+ * work without an object, for inner loops.
+ * <p>
+ * All 4096 sets are made once, so {@link valueOf} never allocates and equal sets are the same object.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public final class PitchClassSet implements Comparable<PitchClassSet> {
+	public static final int PITCH_CLASSES = 12;
+	public static final int SET_COUNT = 1 << PITCH_CLASSES;
+	public static final int ALL_BITS = SET_COUNT - 1;
+	/** Interval classes 1..6 of an interval vector. */
+	public static final int INTERVAL_CLASSES = 6;
+	/** Returned by getSemitones for a token that does not parse. */
+	public static final int NO_INTERVAL = Integer.MIN_VALUE;
+	/** Semitones of major scale degrees 1..13. */
+	public static final int [] DEGREE_SEMITONES = { 0, 2, 4, 5, 7, 9, 11, 12, 14, 16, 17, 19, 21 };
+	/** Formula names of pitch classes from the root. Each parses with {@link Interval#getIntervals}. */
+	public static final String [] DEGREE_NAMES = { "1", "b2", "2", "b3", "3", "4", "b5", "5", "b6", "6", "b7", "7" };
+
+	protected static final PitchClassSet [] SETS = new PitchClassSet[ SET_COUNT ];
+	static {
+		for ( int bits = 0; bits < SET_COUNT; bits++ )
+			SETS[ bits ] = new PitchClassSet( bits );
+	}
+	public static final PitchClassSet EMPTY = SETS[ 0 ];
+	public static final PitchClassSet CHROMATIC = SETS[ ALL_BITS ];
+
+	private PitchClassSet( int bits ) {
+		this.bits = bits;
+	}
+
+	/** Returns the set of the low 12 bits. */
+	public static PitchClassSet valueOf( int bits ) {
+		return SETS[ bits & ALL_BITS ];
+	}
+
+	/** Returns the set of the pitch classes of the pitches or intervals, any octave. */
+	public static PitchClassSet of( int ... pitches ) {
+		int bits = 0;
+		for ( int pitch : pitches )
+			bits |= 1 << getPitchClass( pitch );
+		return SETS[ bits ];
+	}
+
+	/** Returns the set of pitch classes of the notes, from A. Null notes are skipped. */
+	public static PitchClassSet fromNotes( final NoteList notes ) {
+		int bits = 0;
+		if ( null != notes ) {
+			for ( Note note : notes ) {
+				if ( null != note )
+					bits |= 1 << getPitchClass( note.getValue() );
+			}
+		}
+		return SETS[ bits ];
+	}
+
+	/** Returns the set of the intervals from the root. Null intervals are skipped. */
+	public static PitchClassSet fromIntervals( final Interval ... intervals ) {
+		int bits = 0;
+		for ( Interval interval : intervals ) {
+			if ( null != interval )
+				bits |= 1 << getPitchClass( interval.getValue() );
+		}
+		return SETS[ bits ];
+	}
+
+	/** Returns the set of a formula such as "1-3-5-b7" or "R M3 p5", from the root.
+	 * Tokens are read as {@link Interval#getIntervals} does. Degrees it does not name,
+	 * such as b9, #4 or bb7, are read as accidentals on a major scale degree.
+	 * Throws IllegalArgumentException for a token that does not parse.
+	 */
+	public static PitchClassSet fromFormula( String formula ) {
+		if ( null == formula )
+			throw new IllegalArgumentException( "Formula must be provided." );
+		String delimiter = formula.contains( "-" ) ? "-" : " ";
+		int bits = 0;
+		for ( String token : formula.split( delimiter )) {
+			if ( 0 == token.length() )
+				continue;
+			int semitones = getSemitones( token );
+			if ( NO_INTERVAL == semitones )
+				throw new IllegalArgumentException( "Interval name not found, name=" + token );
+			bits |= 1 << getPitchClass( semitones );
+		}
+		return SETS[ bits ];
+	}
+
+	/** Returns the semitones above the root of each interval of a formula such as "1-3-5-b7-b9", in formula order.
+	 * Unlike {@link fromFormula}, octaves are kept, so a b9 is 13.
+	 */
+	public static int [] getFormulaSemitones( String formula ) {
+		if ( null == formula )
+			throw new IllegalArgumentException( "A formula must be provided." );
+		String delimiter = formula.contains( "-" ) ? "-" : " ";
+		String [] tokens = formula.split( delimiter );
+		int [] values = new int[ tokens.length ];
+		int count = 0;
+		for ( String token : tokens ) {
+			if ( 0 == token.length() )
+				continue;
+			int value = getSemitones( token );
+			if ( NO_INTERVAL == value )
+				throw new IllegalArgumentException( "Interval name not found, name=" + token + ", formula=" + formula );
+			values[ count++ ] = value;
+		}
+		return Arrays.copyOf( values, count );
+	}
+
+	/** Returns the semitones of an interval token, or NO_INTERVAL if it does not parse.
+	 * Degrees such as "b13" read from {@link DEGREE_SEMITONES}, other names from {@link Interval}.
+	 */
+	public static int getSemitones( String token ) {
+		int accidental = 0;
+		int i = 0;
+		for ( ; i < token.length(); i++ ) {
+			char c = token.charAt( i );
+			if ( 'b' == c ) accidental--;
+			else if ( '#' == c ) accidental++;
+			else break;
+		}
+		if (( i < token.length() ) && Character.isDigit( token.charAt( i ))) {
+			try {
+				int degree = Integer.parseInt( token.substring( i ));
+				if (( degree >= 1 ) && ( degree <= DEGREE_SEMITONES.length ))
+					return DEGREE_SEMITONES[ degree - 1 ] + accidental;
+			} catch ( NumberFormatException e ) {
+				// Not a degree.
+			}
+			return NO_INTERVAL;
+		}
+		Interval common = Interval.commonNames.get( token );
+		if ( null != common )
+			return common.getValue();
+		try {
+			return Interval.getInterval( token ).getValue();
+		} catch ( IllegalArgumentException e ) {
+			return NO_INTERVAL;
+		}
+	}
+
+	/** Returns the pitch class 0..11 of an absolute pitch or interval. */
+	public static int getPitchClass( int pitch ) {
+		return (( pitch % PITCH_CLASSES ) + PITCH_CLASSES ) % PITCH_CLASSES;
+	}
+
+	/** Returns the bits transposed up by the given semitones. */
+	public static int rotate( int bits, int semitones ) {
+		int shift = getPitchClass( semitones );
+		bits &= ALL_BITS;
+		return (( bits << shift ) | ( bits >>> ( PITCH_CLASSES - shift ))) & ALL_BITS;
+	}
+
+	/** Returns the bits mirrored about pitch class 0, so n becomes -n. */
+	public static int invert( int bits ) {
+		int inverted = bits & 1;
+		for ( int pc = 1; pc < PITCH_CLASSES; pc++ ) {
+			if ( 0 != ( bits & ( 1 << pc )))
+				inverted |= 1 << ( PITCH_CLASSES - pc );
+		}
+		return inverted;
+	}
+
+	/** Returns the smallest rotation of the bits, the same for every transposition of a set. */
+	public static int getNormalForm( int bits ) {
+		int best = bits & ALL_BITS;
+		for ( int semitones = 1; semitones < PITCH_CLASSES; semitones++ )
+			best = Math.min( best, rotate( bits, semitones ));
+		return best;
+	}
+
+	/** Returns the smaller normal form of the bits and their inversion, the same for every transposition or inversion of a set. */
+	public static int getPrimeForm( int bits ) {
+		return Math.min( getNormalForm( bits ), getNormalForm( invert( bits )));
+	}
+
+	/** Returns true if every pitch class of bits is in of. */
+	public static boolean isSubset( int bits, int of ) {
+		return 0 == ( bits & ~of & ALL_BITS );
+	}
+
+	public int getBits() {
+		return bits;
+	}
+
+	public int size() {
+		return Integer.bitCount( bits );
+	}
+
+	public boolean isEmpty() {
+		return 0 == bits;
+	}
+
+	public boolean contains( int pitchClass ) {
+		return 0 != ( bits & ( 1 << getPitchClass( pitchClass )));
+	}
+
+	/** Returns this set with the pitch class added. */
+	public PitchClassSet add( int pitchClass ) {
+		return SETS[ bits | ( 1 << getPitchClass( pitchClass )) ];
+	}
+
+	/** Returns this set with the pitch class removed. */
+	public PitchClassSet remove( int pitchClass ) {
+		return SETS[ bits & ~( 1 << getPitchClass( pitchClass )) ];
+	}
+
+	/** Returns this set transposed up by the given semitones. */
+	public PitchClassSet transpose( int semitones ) {
+		return SETS[ rotate( bits, semitones ) ];
+	}
+
+	/** Returns this set mirrored about pitch class 0. */
+	public PitchClassSet invert() {
+		return SETS[ invert( bits ) ];
+	}
+
+	public PitchClassSet complement() {
+		return SETS[ ~bits & ALL_BITS ];
+	}
+
+	public PitchClassSet union( final PitchClassSet other ) {
+		return SETS[ bits | other.bits ];
+	}
+
+	public PitchClassSet intersection( final PitchClassSet other ) {
+		return SETS[ bits & other.bits ];
+	}
+
+	public PitchClassSet minus( final PitchClassSet other ) {
+		return SETS[ bits & ~other.bits ];
+	}
+
+	public boolean isSubsetOf( final PitchClassSet other ) {
+		return isSubset( bits, other.bits );
+	}
+
+	public boolean isSupersetOf( final PitchClassSet other ) {
+		return isSubset( other.bits, bits );
+	}
+
+	/** Returns the number of pitch classes in one set and not the other. */
+	public int distance( final PitchClassSet other ) {
+		return Integer.bitCount( bits ^ other.bits );
+	}
+
+	/** Returns the count of each interval class 1..6 between pairs of pitch classes. */
+	public int [] getIntervalVector() {
+		int [] vector = new int[ INTERVAL_CLASSES ];
+		for ( int ic = 1; ic <= INTERVAL_CLASSES; ic++ )
+			vector[ ic - 1 ] = Integer.bitCount( bits & rotate( bits, ic ));
+		// The tritone pairs each pitch class with the same partner both ways.
+		vector[ INTERVAL_CLASSES - 1 ] /= 2;
+		return vector;
+	}
+
+	/** Returns the transposition of this set that is the same for all its transpositions. */
+	public PitchClassSet getNormalForm() {
+		return SETS[ getNormalForm( bits ) ];
+	}
+
+	/** Returns the transposition or inversion of this set that is the same for all of them. */
+	public PitchClassSet getPrimeForm() {
+		return SETS[ getPrimeForm( bits ) ];
+	}
+
+	/** Returns the pitch classes in ascending order. */
+	public int [] toArray() {
+		int [] pitchClasses = new int[ size() ];
+		int i = 0;
+		for ( int pc = 0; pc < PITCH_CLASSES; pc++ ) {
+			if ( 0 != ( bits & ( 1 << pc )))
+				pitchClasses[ i++ ] = pc;
+		}
+		return pitchClasses;
+	}
+
+	/** Returns the intervals from the root, in ascending order. */
+	public Interval [] toIntervals() {
+		int [] pitchClasses = toArray();
+		Interval [] intervals = new Interval[ pitchClasses.length ];
+		for ( int i = 0; i < pitchClasses.length; i++ )
+			intervals[ i ] = Interval.getInterval( pitchClasses[ i ] );
+		return intervals;
+	}
+
+	/** Returns a formula such as "1-3-5-b7", which {@link fromFormula} reads back to this set. */
+	public String toFormula() {
+		StringBuilder sb = new StringBuilder();
+		for ( int pc : toArray() ) {
+			if ( sb.length() > 0 )
+				sb.append( "-" );
+			sb.append( DEGREE_NAMES[ pc ] );
+		}
+		return sb.toString();
+	}
+
+	/** Returns the notes of this set as intervals above the root, in ascending order. */
+	public NoteList toNoteList( final Note root ) {
+		List<Note> notes = new LinkedList<Note>();
+		if ( null != root ) {
+			for ( int pc : toArray() )
+				notes.add( Note.plus( root, pc ));
+		}
+		return new NoteList( notes );
+	}
+
+	@Override
+	public int compareTo( final PitchClassSet o ) {
+		return bits - o.bits;
+	}
+
+	@Override
+	public int hashCode() {
+		return bits;
+	}
+
+	@Override
+	public boolean equals( Object obj ) {
+		if ( this == obj )
+			return true;
+		if ( !( obj instanceof PitchClassSet ))
+			return false;
+		return bits == (( PitchClassSet ) obj ).bits;
+	}
+
+	/** Returns the pitch classes, such as "{0,4,7}". */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder( "{" );
+		for ( int pc : toArray() ) {
+			if ( sb.length() > 1 )
+				sb.append( "," );
+			sb.append( pc );
+		}
+		return sb.append( "}" ).toString();
+	}
+
+	protected final int bits;
+}
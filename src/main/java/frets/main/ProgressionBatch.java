@@ -0,0 +1,234 @@
+package frets.main;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A batch of chords, such as a progression in several keys, ranked together on one fretboard.
+ * <p>
+ * Each distinct formula string is parsed once, when its first chord is added, into semitones
+ * above the root. Chords are held as a root pitch and those semitones, so no Note or Interval
+ * objects are made per chord. {@link rank} builds the fretboard pitch index once, then ranks
+ * every chord as its own pool task with {@link Fretboard#getVariations(LocationList,int[],int,int,boolean)}
+ * over the ranker fret range, max fret included, with octaves.
+ * <p>
+ * Results come back in the order chords were added, each with its variations, best voicings
+ * and the nanoseconds spent on it. A chord gives the same voicings as
+ * {@link Fretboard#topKPruned} of {@link Fretboard#getVariations(NoteList,int,int,boolean)}
+ * on the same notes, or {@link Fretboard#explodeAndRank} when k is {@link ALL}.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class ProgressionBatch {
+	/** Rank all permutations rather than the top k. */
+	public static final int ALL = 0;
+
+	/** A batch ranking the k best voicings of each chord. Use ALL for every permutation. */
+	public ProgressionBatch( final Fretboard fretboard, final ChordRank ranker, int k ) {
+		if ( null == fretboard )
+			throw new IllegalArgumentException( "A fretboard must be provided to rank a batch." );
+		if ( null == ranker )
+			throw new IllegalArgumentException( "A ranker must be provided to rank a batch." );
+		if ( k < 0 )
+			throw new IllegalArgumentException( "Voicing count " + k + " must not be negative." );
+		this.fretboard = fretboard;
+		this.ranker = ranker;
+		this.k = k;
+	}
+
+	/** Adds a chord of the formula, such as "1-3-5-b7", on the root. Returns this batch. */
+	public ProgressionBatch add( final Note root, String formula ) {
+		if ( null == root )
+			throw new IllegalArgumentException( "A root must be provided for formula " + formula + "." );
+		chords.add( new Chord( new Note( root ), formula, root.getAbsoluteValue(), resolve( formula )));
+		return this;
+	}
+
+	/** Adds a chord of the formula on the root. Returns this batch. */
+	public ProgressionBatch add( final Note root, final Formula formula ) {
+		if ( null == formula )
+			throw new IllegalArgumentException( "A formula must be provided for root " + root + "." );
+		return add( root, formula.getFormula() );
+	}
+
+	/** Adds each formula on the matching root. Returns this batch. */
+	public ProgressionBatch addAll( final List<Note> roots, final List<String> formulas ) {
+		if ( roots.size() != formulas.size() )
+			throw new IllegalArgumentException( "Root count " + roots.size() + " does not match formula count " + formulas.size() + "." );
+		for ( int i = 0; i < roots.size(); i++ )
+			add( roots.get( i ), formulas.get( i ));
+		return this;
+	}
+
+	public int size() {
+		return chords.size();
+	}
+
+	/** Returns the number of distinct formulas parsed. */
+	public int getFormulaCount() {
+		return semitones.size();
+	}
+
+	/** Ranks every chord on the shared pool. Results are in the order chords were added. */
+	public List<Result> rank() {
+		return rank( RankTask.POOL );
+	}
+
+	/** Ranks every chord on the given pool. Results are in the order chords were added. */
+	public List<Result> rank( final ForkJoinPool pool ) {
+		long start = System.nanoTime();
+		fretboard.getIndex(); // build once, before the tasks share it
+		List<Callable<Result>> tasks = new LinkedList<Callable<Result>>();
+		int index = 0;
+		for ( final Chord chord : chords ) {
+			final int chordi = index++;
+			tasks.add( new Callable<Result>() {
+				public Result call() {
+					return rank( chordi, chord );
+				}
+			});
+		}
+		List<Result> results = new LinkedList<Result>();
+		try {
+			for ( Future<Result> result : pool.invokeAll( tasks ))
+				results.add( result.get() );
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IllegalArgumentException( "Batch ranking was interrupted.", e );
+		} catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof RuntimeException )
+				throw (RuntimeException) e.getCause();
+			throw new IllegalArgumentException( "Batch ranking failed.", e.getCause() );
+		}
+		lastNanos = System.nanoTime() - start;
+		return results;
+	}
+
+	/** Returns the wall clock nanoseconds of the last rank, including pool scheduling. */
+	public long getLastNanos() {
+		return lastNanos;
+	}
+
+	/** Ranks one chord. */
+	protected Result rank( int chordi, final Chord chord ) {
+		long start = System.nanoTime();
+		int [] pitches = new int[ chord.semitones.length ];
+		for ( int i = 0; i < pitches.length; i++ )
+			pitches[ i ] = chord.rootPitch + chord.semitones[ i ];
+		// The ranker max fret is inclusive, the variations max fret exclusive.
+		List<LocationList> variations = fretboard.getVariations( null, pitches, ranker.getMinFret(), ranker.getMaxFret() + 1, Fretboard.OCTAVES );
+		List<RankedLocationList> voicings;
+		if ( null == variations )
+			voicings = new LinkedList<RankedLocationList>();
+		else if ( ALL == k )
+			voicings = Fretboard.explodeAndRank( variations, ranker );
+		else
+			voicings = new VoicingSearch( variations, ranker ).topK( k );
+		return new Result( chordi, chord, variations, voicings, System.nanoTime() - start );
+	}
+
+	/** Returns the semitones of the formula above the root, parsing each distinct formula once. */
+	protected synchronized int [] resolve( String formula ) {
+		int [] resolved = semitones.get( formula );
+		if ( null == resolved ) {
+			resolved = PitchClassSet.getFormulaSemitones( formula );
+			semitones.put( formula, resolved );
+		}
+		return resolved;
+	}
+
+	/** A chord of a batch, a root pitch and the semitones of its formula. */
+	public static class Chord {
+		protected Chord( final Note root, String formula, int rootPitch, final int [] semitones ) {
+			this.root = root;
+			this.formula = formula;
+			this.rootPitch = rootPitch;
+			this.semitones = semitones;
+		}
+
+		public Note getRoot() {
+			return root;
+		}
+
+		public String getFormula() {
+			return formula;
+		}
+
+		@Override
+		public String toString() {
+			return root + " " + formula;
+		}
+
+		protected final Note root;
+		protected final String formula;
+		protected final int rootPitch;
+		protected final int [] semitones;
+	}
+
+	/** The ranked voicings of one chord of a batch. */
+	public static class Result {
+		protected Result( int index, final Chord chord, final List<LocationList> variations, final List<RankedLocationList> voicings, long nanos ) {
+			this.index = index;
+			this.chord = chord;
+			this.variations = variations;
+			this.voicings = voicings;
+			this.nanos = nanos;
+		}
+
+		/** Returns the position of the chord in the batch. */
+		public int getIndex() {
+			return index;
+		}
+
+		public Chord getChord() {
+			return chord;
+		}
+
+		/** Returns the variations of the chord, or null if the fretboard cannot play it. */
+		public List<LocationList> getVariations() {
+			return variations;
+		}
+
+		/** Returns the voicings, best first, with scores and permutation numbers. */
+		public List<RankedLocationList> getVoicings() {
+			return voicings;
+		}
+
+		/** Returns the locations of the voicings, best first. */
+		public List<LocationList> getLocations() {
+			List<LocationList> locations = new LinkedList<LocationList>();
+			for ( RankedLocationList voicing : voicings )
+				locations.add( voicing.getLocations() );
+			return locations;
+		}
+
+		/** Returns the nanoseconds spent finding variations and ranking this chord. */
+		public long getNanos() {
+			return nanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Result[" + index + " " + chord + ", voicings=" + voicings.size() + ", micros=" + ( nanos / 1000 ) + "]";
+		}
+
+		protected final int index;
+		protected final Chord chord;
+		protected final List<LocationList> variations;
+		protected final List<RankedLocationList> voicings;
+		protected final long nanos;
+	}
+
+	protected final Fretboard fretboard;
+	protected final ChordRank ranker;
+	protected final int k;
+	protected final List<Chord> chords = new LinkedList<Chord>();
+	protected final Map<String,int []> semitones = new HashMap<String,int []>();
+	protected long lastNanos = 0;
+}
@@ -0,0 +1,118 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ranks a range of permutation numbers, returning the k best.
+ * <p>
+ * Large ranges are split in half and ranked as fork-join subtasks. Each subtask keeps
+ * its own bounded heap and scratch LocationList, and the sorted partial results are
+ * merged on the way back up. Since ties go to the lower permutation number, the
+ * result does not depend on how the range was split or scheduled, and matches
+ * {@link Fretboard#topKRanked}.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class RankTask extends RecursiveTask<List<RankedLocationList>> {
+	private static final long serialVersionUID = 1L;
+
+	/** The smallest range {@link getInstance} splits off for a subtask. */
+	public static final long MIN_RANGE = 4096;
+
+	/** Shared pool for {@link Fretboard#topKParallel}. Worker threads are daemons. */
+	public static final ForkJoinPool POOL = new ForkJoinPool();
+
+	public RankTask( final Permutations permutations, final ChordRank ranker, int k, long from, long to, long threshold ) {
+		this.permutations = permutations;
+		this.ranker = ranker;
+		this.k = k;
+		this.from = from;
+		this.to = to;
+		this.threshold = Math.max( threshold, 1L );
+	}
+
+	/** Returns a task over all permutations, split into a few ranges per pool thread. */
+	public static RankTask getInstance( final List<LocationList> variations, final ChordRank ranker, int k, int parallelism ) {
+		Permutations permutations = new Permutations( variations, true );
+		long count = permutations.getCount();
+		long threshold = Math.max( count / ( 4L * Math.max( 1, parallelism )), MIN_RANGE );
+		return new RankTask( permutations, ranker, k, 0, count, threshold );
+	}
+
+	@Override
+	protected List<RankedLocationList> compute() {
+		if ( to - from <= threshold )
+			return rank( permutations, ranker, k, from, to );
+		long middle = from + ( to - from ) / 2;
+		RankTask low = new RankTask( permutations, ranker, k, from, middle, threshold );
+		RankTask high = new RankTask( permutations, ranker, k, middle, to, threshold );
+		low.fork();
+		List<RankedLocationList> highBest = high.compute();
+		return merge( low.join(), highBest, k );
+	}
+
+	/** Ranks the permutations from (inclusive) to (exclusive) on the current thread.
+	 * Each permutation is scored once with {@link ChordRank#getSum}.
+	 * A bounded heap keeps the k best seen so far. Ties go to the lower permutation number.
+	 */
+	public static List<RankedLocationList> rank( final Permutations permutations, final ChordRank ranker, int k, long from, long to ) {
+		if ( null == ranker )
+			throw new IllegalArgumentException( "A ranker must be provided to rank permutations." );
+		List<RankedLocationList> best = new LinkedList<RankedLocationList>();
+		if (( k < 1 ) || ( from >= to )) return best;
+
+		// Worst of the best is at the head of the heap.
+		int capacity = (int) Math.min( (long) k, to - from );
+		PriorityQueue<RankedLocationList> heap =
+			new PriorityQueue<RankedLocationList>( capacity + 1, Collections.reverseOrder() );
+		Permutations.PermutationIterator it = permutations.iterator( from, to );
+		while ( it.hasNext() ) {
+			LocationList scratch = it.next();
+			int score = ranker.getSum( scratch );
+			// Later permutations lose ties, so an equal score never displaces the head.
+			if (( heap.size() < capacity ) || ( score < heap.peek().getScore() )) {
+				heap.add( new RankedLocationList( new PackedLocationList( scratch ), it.getPermutationNumber(), score ));
+				if ( heap.size() > capacity )
+					heap.poll();
+			}
+		}
+
+		RankedLocationList [] sorted = heap.toArray( new RankedLocationList[ heap.size() ] );
+		Arrays.sort( sorted );
+		best.addAll( Arrays.asList( sorted ));
+		return best;
+	}
+
+	/** Merges two best-first lists, keeping the k best. */
+	public static List<RankedLocationList> merge( final List<RankedLocationList> a, final List<RankedLocationList> b, int k ) {
+		List<RankedLocationList> best = new LinkedList<RankedLocationList>();
+		Iterator<RankedLocationList> ait = a.iterator();
+		Iterator<RankedLocationList> bit = b.iterator();
+		RankedLocationList anext = ait.hasNext() ? ait.next() : null;
+		RankedLocationList bnext = bit.hasNext() ? bit.next() : null;
+		while (( best.size() < k ) && (( null != anext ) || ( null != bnext ))) {
+			if (( null == bnext ) || (( null != anext ) && ( anext.compareTo( bnext ) <= 0 ))) {
+				best.add( anext );
+				anext = ait.hasNext() ? ait.next() : null;
+			} else {
+				best.add( bnext );
+				bnext = bit.hasNext() ? bit.next() : null;
+			}
+		}
+		return best;
+	}
+
+	protected final Permutations permutations;
+	protected final ChordRank ranker;
+	protected final int k;
+	protected final long from;
+	protected final long to;
+	protected final long threshold;
+}
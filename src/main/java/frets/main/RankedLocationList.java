@@ -0,0 +1,84 @@
+package frets.main;
+
+/**
+ * A location list paired with its rank score and permutation number.
+ * <p>
+ * Lower scores are better. Equal scores are ordered by permutation number,
+ * so a ranking is deterministic and matches the stable sort order of
+ * {@link Fretboard#explodeAndSort}.
+ * <p>
+ * When ranked with {@link Fretboard#explodeAndRank}, the list also carries its
+ * {@link ChordRank#compositeScore} vector, so scores can be shown without scoring again.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class RankedLocationList implements Comparable<RankedLocationList> {
+
+	public RankedLocationList( final LocationList locations, long permutation, int score ) {
+		this.locations = locations;
+		this.permutation = permutation;
+		this.score = score;
+	}
+
+	/** Ranks with a composite score vector. The sum score is the first element. */
+	public RankedLocationList( final LocationList locations, long permutation, final int [] scores ) {
+		this( locations, permutation, scores[ 0 ] );
+		this.scores = scores;
+	}
+
+	public LocationList getLocations() {
+		return locations;
+	}
+
+	public long getPermutation() {
+		return permutation;
+	}
+
+	/** Returns the sum score, as given by {@link ChordRank#getSum}. */
+	public int getScore() {
+		return score;
+	}
+
+	/** Returns the composite score vector, as given by {@link ChordRank#compositeScore}, or null if only the sum was kept. */
+	public int [] getScores() {
+		return scores;
+	}
+
+	/** Lower score is less than. Ties are broken by lower permutation number. */
+	public int compareTo( RankedLocationList o ) {
+		if ( score != o.score )
+			return ( score < o.score ) ? -1 : 1;
+		if ( permutation != o.permutation )
+			return ( permutation < o.permutation ) ? -1 : 1;
+		return 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * score + (int) ( permutation ^ ( permutation >>> 32 ));
+	}
+
+	@Override
+	public boolean equals( Object obj ) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RankedLocationList other = (RankedLocationList) obj;
+		if (( score != other.score ) || ( permutation != other.permutation ))
+			return false;
+		return ( null == locations ) ? ( null == other.locations ) : locations.equals( other.locations );
+	}
+
+	@Override
+	public String toString() {
+		return permutation + ":" + score + ":" + locations;
+	}
+
+	protected LocationList locations;
+	protected long permutation;
+	protected int score;
+	protected int [] scores;
+}
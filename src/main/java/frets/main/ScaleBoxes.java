@@ -0,0 +1,200 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Places a scale on the neck as positions (boxes) a hand can play without shifting.
+ * <p>
+ * Two kinds of box are generated from the {@link FretboardIndex} of a fretboard:
+ *    - window positions: every scale location inside a fret window, where each string has
+ *      at least one note. The window slides one fret at a time, and per string note counts
+ *      are updated from the fret entering and the fret leaving, rather than rescanning the window.
+ *      A window is listed only when its notes differ from the previous one.
+ *    - notes per string: from each scale location on the first string, the next n scale
+ *      pitches on each string in turn, walking up the scale, within a maximum fret span.
+ * Boxes are location lists, so they display with {@link Fretboard#toString(LocationList,int,int,Display)}.
+ * <p>
+ * Results are cached per compiled fretboard. The cache is keyed weakly by the fretboard
+ * index, which a fretboard drops when it changes, so entries of changed or unused
+ * fretboards are never served and are collected. Each get returns a copy.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class ScaleBoxes {
+	public static final int DEFAULT_WIDTH = 5;
+	public static final int DEFAULT_NOTES_PER_STRING = 3;
+	public static final int DEFAULT_MAX_SPAN = 5;
+	/** Kinds of box, part of the cache key. */
+	protected static final int WINDOW = 0;
+	protected static final int NOTES_PER_STRING = 1;
+
+	/** Boxes shared by callers that do not need their own cache. */
+	public static final ScaleBoxes INSTANCE = new ScaleBoxes();
+
+	/** Returns each distinct window of the fret width where every string plays a scale note, lowest fret first.
+	 * The scale counts from its root, as {@link PitchClassSet#fromFormula}.
+	 */
+	public List<LocationList> getPositions( final Fretboard fretboard, final PitchClassSet scale, final Note root, int width ) {
+		if ( width < 1 )
+			throw new IllegalArgumentException( "Window width " + width + " must be at least 1." );
+		return get( fretboard, scale, root, WINDOW, width, 0 );
+	}
+
+	/** Returns each box of n scale notes per string within the fret span, by lowest first string fret.
+	 * The scale counts from its root, as {@link PitchClassSet#fromFormula}.
+	 */
+	public List<LocationList> getNotesPerString( final Fretboard fretboard, final PitchClassSet scale, final Note root, int n, int maxSpan ) {
+		if (( n < 1 ) || ( maxSpan < 0 ))
+			throw new IllegalArgumentException( "Notes per string " + n + " and span " + maxSpan + " must be positive." );
+		return get( fretboard, scale, root, NOTES_PER_STRING, n, maxSpan );
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/** Returns the number of boxes lists cached over all live fretboards. */
+	public synchronized int size() {
+		int size = 0;
+		for ( Map<List<Integer>,List<LocationList>> boxes : cache.values() )
+			size += boxes.size();
+		return size;
+	}
+
+	public synchronized void clear() {
+		cache.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	/** Returns a copy of the cached boxes, computing them on a miss. */
+	protected List<LocationList> get( final Fretboard fretboard, final PitchClassSet scale, final Note root, int kind, int a, int b ) {
+		if (( null == fretboard ) || ( null == scale ) || ( null == root ))
+			throw new IllegalArgumentException( "Fretboard, scale and root must be provided to place a scale." );
+		FretboardIndex index = fretboard.getIndex();
+		int set = scale.transpose( root.getValue() ).getBits();
+		List<Integer> key = Arrays.asList( set, kind, a, b );
+		List<LocationList> boxes;
+		synchronized ( this ) {
+			Map<List<Integer>,List<LocationList>> fretboardBoxes = cache.get( index );
+			if ( null == fretboardBoxes ) {
+				fretboardBoxes = new HashMap<List<Integer>,List<LocationList>>();
+				cache.put( index, fretboardBoxes );
+			}
+			boxes = fretboardBoxes.get( key );
+			if ( null != boxes ) {
+				hits++;
+				return VariationCache.copy( boxes );
+			}
+			misses++;
+		}
+		boxes = ( WINDOW == kind ) ? getPositions( index, set, a ) : getNotesPerString( index, set, a, b );
+		synchronized ( this ) {
+			Map<List<Integer>,List<LocationList>> fretboardBoxes = cache.get( index );
+			if ( null != fretboardBoxes )
+				fretboardBoxes.put( key, boxes );
+		}
+		return VariationCache.copy( boxes );
+	}
+
+	/** Slides a window of the width along the neck, keeping a scale note count per string. */
+	protected static List<LocationList> getPositions( final FretboardIndex index, int set, int width ) {
+		List<LocationList> boxes = new LinkedList<LocationList>();
+		int strings = index.getStringCount();
+		if ( 0 == strings )
+			return boxes;
+		int frets = 0;
+		for ( int s = 0; s < strings; s++ )
+			frets = Math.max( frets, index.getMaxFret( s ));
+		int [] counts = new int[ strings ];
+		int covered = 0; // strings with a note in the window
+		boolean changed = false;
+		for ( int end = 0; end < frets; end++ ) {
+			int start = end - width + 1;
+			for ( int s = 0; s < strings; s++ ) {
+				if ( inScale( index, set, s, end )) {
+					if ( 0 == counts[ s ]++ )
+						covered++;
+					changed = true;
+				}
+				if (( start > 0 ) && inScale( index, set, s, start - 1 )) {
+					if ( 0 == --counts[ s ] )
+						covered--;
+					changed = true;
+				}
+			}
+			if (( start >= 0 ) && changed && ( covered == strings )) {
+				LocationList box = new LocationList();
+				for ( int s = 0; s < strings; s++ ) {
+					for ( int fret = start; fret <= end; fret++ ) {
+						if ( inScale( index, set, s, fret ))
+							box.add( new Location( s, fret ));
+					}
+				}
+				boxes.add( box );
+				changed = false;
+			}
+		}
+		return boxes;
+	}
+
+	/** Walks up the scale from each scale location on the first string, n pitches per string. */
+	protected static List<LocationList> getNotesPerString( final FretboardIndex index, int set, int n, int maxSpan ) {
+		List<LocationList> boxes = new LinkedList<LocationList>();
+		int strings = index.getStringCount();
+		if (( 0 == strings ) || ( 0 == set ))
+			return boxes;
+		// Semitones from each pitch class up to the next one in the scale.
+		int [] step = new int[ PitchClassSet.PITCH_CLASSES ];
+		for ( int pc = 0; pc < PitchClassSet.PITCH_CLASSES; pc++ ) {
+			int next = 1;
+			while ( 0 == ( set & ( 1 << PitchClassSet.getPitchClass( pc + next ))))
+				next++;
+			step[ pc ] = next;
+		}
+		for ( int startFret = 0; startFret < index.getMaxFret( 0 ); startFret++ ) {
+			if ( !inScale( index, set, 0, startFret ))
+				continue;
+			LocationList box = new LocationList();
+			int pitch = index.getPitch( 0, startFret );
+			int minFret = Integer.MAX_VALUE;
+			int maxFret = Integer.MIN_VALUE;
+			boolean playable = true;
+			for ( int s = 0; playable && ( s < strings ); s++ ) {
+				for ( int i = 0; i < n; i++ ) {
+					int fret = pitch - index.getOpenPitch( s );
+					if (( fret < 0 ) || ( fret >= index.getMaxFret( s ))) {
+						playable = false;
+						break;
+					}
+					box.add( new Location( s, fret ));
+					minFret = Math.min( minFret, fret );
+					maxFret = Math.max( maxFret, fret );
+					pitch += step[ PitchClassSet.getPitchClass( pitch ) ];
+				}
+			}
+			if ( playable && ( maxFret - minFret <= maxSpan ))
+				boxes.add( box );
+		}
+		return boxes;
+	}
+
+	/** Returns true if the string and fret plays a pitch class of the set. */
+	protected static boolean inScale( final FretboardIndex index, int set, int s, int fret ) {
+		int pitch = index.getPitch( s, fret );
+		return ( FretboardIndex.NO_PITCH != pitch ) && ( 0 != ( set & ( 1 << PitchClassSet.getPitchClass( pitch ))));
+	}
+
+	protected final Map<FretboardIndex,Map<List<Integer>,List<LocationList>>> cache = new WeakHashMap<FretboardIndex,Map<List<Integer>,List<LocationList>>>();
+	protected long hits = 0;
+	protected long misses = 0;
+}
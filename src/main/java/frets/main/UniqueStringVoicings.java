@@ -0,0 +1,104 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Generates only the permutations of a variation list that play each location on its own string.
+ * <p>
+ * Rather than producing every permutation and leaving the repeats to
+ * {@link ChordRank#sameStringScore}, this assigns one location per variation list
+ * depth first, keeping the strings used so far in a bit mask. A location on a used
+ * string is skipped along with every permutation below it, so the generated lists
+ * are exactly the permutations for which {@link LocationList#uniqueStrings} is true.
+ * <p>
+ * Digits are visited most significant first, so the lists arrive in permutation
+ * number order, in the same form as {@link Fretboard#getPermutation}.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class UniqueStringVoicings {
+	public UniqueStringVoicings( final List<LocationList> variations ) {
+		digits = Permutations.getDigits( variations );
+		weights = Permutations.getWeights( digits );
+		if ( !Permutations.fitsStringMask( digits ))
+			throw new IllegalArgumentException( "Variations " + variations + " have a location outside strings 0.." + ( LocationList.MASK_STRINGS - 1 ) + "." );
+	}
+
+	/** Returns every permutation with one location per string, in permutation number order. */
+	public List<LocationList> getVoicings() {
+		List<LocationList> voicings = new LinkedList<LocationList>();
+		for ( RankedLocationList voicing : search( null ))
+			voicings.add( voicing.getLocations() );
+		return voicings;
+	}
+
+	/** Returns every permutation with one location per string, best first, with score vectors and permutation numbers.
+	 * The result is the same as {@link Fretboard#explodeAndRank} less the lists with repeated strings.
+	 */
+	public List<RankedLocationList> rank( final ChordRank ranker ) {
+		if ( null == ranker )
+			throw new IllegalArgumentException( "A ranker must be provided to rank permutations." );
+		List<RankedLocationList> voicings = search( ranker );
+		RankedLocationList [] sorted = voicings.toArray( new RankedLocationList[ voicings.size() ] );
+		Arrays.sort( sorted );
+		return new LinkedList<RankedLocationList>( Arrays.asList( sorted ));
+	}
+
+	/** Returns the number of permutations with one location per string. */
+	public long getCount() {
+		if ( 0 == digits.length )
+			return 0;
+		return count( digits.length - 1, 0L );
+	}
+
+	/** Returns the voicings in permutation number order, scored if a ranker is given. */
+	protected List<RankedLocationList> search( final ChordRank ranker ) {
+		List<RankedLocationList> voicings = new LinkedList<RankedLocationList>();
+		if ( 0 < digits.length )
+			search( digits.length - 1, 0L, 0L, new Location[ digits.length ], voicings, ranker );
+		return voicings;
+	}
+
+	/** Chooses a location for digit d and below, on strings not in used. */
+	protected void search( int d, long used, long permutation, final Location [] chosen,
+		final List<RankedLocationList> voicings, final ChordRank ranker ) {
+		for ( int i = 0; i < digits[ d ].length; i++ ) {
+			Location location = digits[ d ][ i ];
+			long bit = 1L << location.getString();
+			if ( 0L != ( used & bit ))
+				continue;
+			// Output position is the reverse of the digit position.
+			chosen[ digits.length - 1 - d ] = location;
+			long next = permutation + i * weights[ d ];
+			if ( 0 == d ) {
+				// Like getPermutation, locations are shared with the variations.
+				LocationList voicing = new LocationList();
+				for ( Location choice : chosen )
+					voicing.add( choice );
+				if ( null == ranker )
+					voicings.add( new RankedLocationList( voicing, next, 0 ));
+				else
+					voicings.add( new RankedLocationList( voicing, next, ranker.compositeScore( voicing )));
+			} else {
+				search( d - 1, used | bit, next, chosen, voicings, ranker );
+			}
+		}
+	}
+
+	/** Counts the choices for digit d and below, on strings not in used. */
+	protected long count( int d, long used ) {
+		long total = 0;
+		for ( Location location : digits[ d ] ) {
+			long bit = 1L << location.getString();
+			if ( 0L != ( used & bit ))
+				continue;
+			total += ( 0 == d ) ? 1 : count( d - 1, used | bit );
+		}
+		return total;
+	}
+
+	protected final Location [][] digits;
+	protected final long [] weights;
+}
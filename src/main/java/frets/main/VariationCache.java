@@ -0,0 +1,183 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, thread-safe memo of {@link Fretboard#getVariations(LocationList,NoteList,int,int,boolean)}.
+ * <p>
+ * Fretboards, note lists and location lists are mutable, so their hashCodes cannot key a cache.
+ * Each request is keyed by values copied at call time instead:
+ *    - the fretboard {@link Fretboard#getFingerprint}
+ *    - the absolute pitches of the notes
+ *    - the packed fixed locations
+ *    - the fret window and octave flag
+ * Entries are evicted least recently used once the cache holds its max size.
+ * Hit, miss and eviction counts are kept for monitoring.
+ * <p>
+ * Cached variations are private copies. Each get returns a new copy, so callers may
+ * change the result freely. A request with no variations is cached too, and returns null.
+ * Lookups hold the cache lock. Variations are computed
+ * outside it, so two threads that miss on the same key may both compute it.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VariationCache {
+	public static final int DEFAULT_SIZE = 1024;
+
+	/** Stored for a request with no variations, so repeats of it hit. Compared by identity. */
+	protected static final List<LocationList> NO_VARIATIONS = new LinkedList<LocationList>();
+
+	/** A cache shared by callers that do not need their own. */
+	public static final VariationCache INSTANCE = new VariationCache( DEFAULT_SIZE );
+
+	public VariationCache( int maxSize ) {
+		if ( maxSize < 1 )
+			throw new IllegalArgumentException( "Cache size " + maxSize + " must be at least 1." );
+		this.maxSize = maxSize;
+		// Access order, so the eldest entry is the least recently used.
+		entries = new LinkedHashMap<Key,List<LocationList>>( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<Key,List<LocationList>> eldest ) {
+				if ( size() > VariationCache.this.maxSize ) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/** Returns variations as {@link Fretboard#getVariations(LocationList,NoteList,int,int,boolean)}, from the cache when possible. */
+	public List<LocationList> getVariations( final Fretboard fretboard, final LocationList fixed, final NoteList notes, int minFret, int maxFret, boolean includeOctaves ) {
+		if ( null == fretboard )
+			throw new IllegalArgumentException( "Fretboard must be provided to get variations." );
+		Key key = new Key( fretboard, fixed, notes, minFret, maxFret, includeOctaves );
+		List<LocationList> cached;
+		synchronized ( this ) {
+			cached = entries.get( key );
+			if ( null != cached )
+				hits++;
+			else
+				misses++;
+		}
+		if ( NO_VARIATIONS == cached )
+			return null;
+		if ( null != cached )
+			return copy( cached );
+
+		List<LocationList> variations = fretboard.getVariations( fixed, notes, minFret, maxFret, includeOctaves );
+		List<LocationList> stored = ( null == variations ) ? NO_VARIATIONS : copy( variations );
+		synchronized ( this ) {
+			entries.put( key, stored );
+		}
+		return variations;
+	}
+
+	/** Returns variations as {@link Fretboard#getVariations(NoteList,int,int,boolean)}, from the cache when possible. */
+	public List<LocationList> getVariations( final Fretboard fretboard, final NoteList notes, int minFret, int maxFret, boolean includeOctaves ) {
+		return getVariations( fretboard, null, notes, minFret, maxFret, includeOctaves );
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/** Drops all entries and zeroes the counts. */
+	public synchronized void clear() {
+		entries.clear();
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "VariationCache size=" + entries.size() + "/" + maxSize + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions;
+	}
+
+	/** Copies the variation lists and their locations. Null and empty lists are kept in place. */
+	protected static List<LocationList> copy( final List<LocationList> variations ) {
+		List<LocationList> copy = new LinkedList<LocationList>();
+		for ( LocationList enharmonics : variations )
+			copy.add(( null == enharmonics ) ? null : new LocationList( enharmonics ));
+		return copy;
+	}
+
+	/** An immutable snapshot of a variations request. */
+	protected static class Key {
+		protected Key( final Fretboard fretboard, final LocationList fixed, final NoteList notes, int minFret, int maxFret, boolean includeOctaves ) {
+			fingerprint = fretboard.getFingerprint();
+			int noteCount = ( null == notes ) ? 0 : notes.size();
+			pitches = new int[ noteCount ];
+			for ( int i = 0; i < noteCount; i++ )
+				pitches[ i ] = notes.getAbsoluteValue( i );
+			int fixedCount = ( null == fixed ) ? 0 : fixed.size();
+			locations = new long[ fixedCount ];
+			for ( int i = 0; i < fixedCount; i++ ) {
+				Location location = fixed.get( i );
+				locations[ i ] = ((long) location.getString() << 32 ) | ( location.getFret() & 0xFFFFFFFFL );
+			}
+			this.minFret = minFret;
+			this.maxFret = maxFret;
+			this.includeOctaves = includeOctaves;
+			hash = 31 * ( 31 * ( 31 * fingerprint.hashCode() + Arrays.hashCode( pitches )) + Arrays.hashCode( locations ))
+				+ 961 * minFret + 31 * maxFret + ( includeOctaves ? 1 : 0 );
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals( Object obj ) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return ( hash == other.hash ) && ( minFret == other.minFret ) && ( maxFret == other.maxFret )
+				&& ( includeOctaves == other.includeOctaves )
+				&& fingerprint.equals( other.fingerprint ) && Arrays.equals( pitches, other.pitches )
+				&& Arrays.equals( locations, other.locations );
+		}
+
+		protected final String fingerprint;
+		protected final int [] pitches;
+		protected final long [] locations;
+		protected final int minFret;
+		protected final int maxFret;
+		protected final boolean includeOctaves;
+		protected final int hash;
+	}
+
+	protected final int maxSize;
+	protected final LinkedHashMap<Key,List<LocationList>> entries;
+	protected long hits = 0;
+	protected long misses = 0;
+	protected long evictions = 0;
+}
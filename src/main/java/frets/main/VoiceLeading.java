@@ -0,0 +1,206 @@
+package frets.main;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Chooses one voicing per chord of a progression, minimizing ranker scores plus hand movement.
+ * <p>
+ * The path cost is the sum of each chosen voicing's {@link RankedLocationList#getScore}
+ * and of the transition cost between neighbouring voicings. The transition cost compares
+ * the voicings string by string:
+ *    - a string played in both costs movementWeight per fret moved
+ *    - a string played in only one costs stringChangePenalty
+ * <p>
+ * Rather than try every path, a Viterbi pass keeps, for each candidate of the current chord,
+ * the cheapest path cost ending there and the previous candidate on that path. Each voicing
+ * is flattened into a row of frets per string, so the pairwise cost matrix between two
+ * chords is a tight loop over int arrays. Only the previous chord's costs and one matrix are
+ * kept, plus a back pointer per candidate, so memory is linear in progression length.
+ * Ties go to the lower candidate index, so the best ranked voicing wins among equals.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoiceLeading {
+	public static final int DEFAULT_MOVEMENT_WEIGHT = 1;
+	public static final int DEFAULT_STRING_CHANGE_PENALTY = 2;
+	/** Fret of a string a voicing does not play. */
+	public static final int NOT_PLAYED = -1;
+
+	public VoiceLeading() {
+		this( DEFAULT_MOVEMENT_WEIGHT, DEFAULT_STRING_CHANGE_PENALTY );
+	}
+
+	public VoiceLeading( int movementWeight, int stringChangePenalty ) {
+		if (( movementWeight < 0 ) || ( stringChangePenalty < 0 ))
+			throw new IllegalArgumentException( "Weights " + movementWeight + " and " + stringChangePenalty + " must not be negative." );
+		this.movementWeight = movementWeight;
+		this.stringChangePenalty = stringChangePenalty;
+	}
+
+	public int getMovementWeight() {
+		return movementWeight;
+	}
+
+	public int getStringChangePenalty() {
+		return stringChangePenalty;
+	}
+
+	/** Returns the cost of moving the hand from one voicing to the next. */
+	public int getTransitionCost( final LocationList from, final LocationList to ) {
+		int strings = Math.max( getStringCount( from ), getStringCount( to ));
+		int [] a = new int[ strings ];
+		int [] b = new int[ strings ];
+		flatten( from, a, 0, strings );
+		flatten( to, b, 0, strings );
+		int [] cost = new int[ 1 ];
+		getCosts( a, 1, b, 1, strings, cost );
+		return cost[ 0 ];
+	}
+
+	/** Returns the chosen voicing of each chord, one candidate list per chord, candidates best first. */
+	public List<RankedLocationList> plan( final List<List<RankedLocationList>> candidates ) {
+		int [] path = getPath( candidates );
+		List<RankedLocationList> chosen = new LinkedList<RankedLocationList>();
+		int chordi = 0;
+		for ( List<RankedLocationList> chord : candidates )
+			chosen.add( chord.get( path[ chordi++ ] ));
+		return chosen;
+	}
+
+	/** Returns the chosen voicing of each batch result, in batch order. */
+	public List<RankedLocationList> planResults( final List<ProgressionBatch.Result> results ) {
+		List<List<RankedLocationList>> candidates = new LinkedList<List<RankedLocationList>>();
+		for ( ProgressionBatch.Result result : results )
+			candidates.add( result.getVoicings() );
+		return plan( candidates );
+	}
+
+	/** Returns the index of the chosen candidate of each chord.
+	 * Throws IllegalArgumentException if a chord has no candidates.
+	 */
+	public int [] getPath( final List<List<RankedLocationList>> candidates ) {
+		int n = candidates.size();
+		int [] path = new int[ n ];
+		lastCost = 0;
+		if ( 0 == n )
+			return path;
+
+		int strings = 0;
+		int maxK = 0;
+		for ( List<RankedLocationList> chord : candidates ) {
+			if (( null == chord ) || ( chord.isEmpty() ))
+				throw new IllegalArgumentException( "Every chord needs a voicing to plan a path." );
+			maxK = Math.max( maxK, chord.size() );
+			for ( RankedLocationList voicing : chord )
+				strings = Math.max( strings, getStringCount( voicing.getLocations() ));
+		}
+
+		int [][] back = new int[ n ][];
+		int [] prevFrets = new int[ maxK * strings ];
+		int [] curFrets = new int[ maxK * strings ];
+		long [] prevCost = new long[ maxK ];
+		long [] curCost = new long[ maxK ];
+		int [] matrix = new int[ maxK * maxK ];
+
+		int prevK = 0;
+		int chordi = 0;
+		for ( List<RankedLocationList> chord : candidates ) {
+			int k = 0;
+			for ( RankedLocationList voicing : chord )
+				flatten( voicing.getLocations(), curFrets, strings * k++, strings );
+			back[ chordi ] = new int[ k ];
+			if ( 0 == chordi ) {
+				int c = 0;
+				for ( RankedLocationList voicing : chord )
+					curCost[ c++ ] = voicing.getScore();
+			} else {
+				getCosts( prevFrets, prevK, curFrets, k, strings, matrix );
+				int c = 0;
+				for ( RankedLocationList voicing : chord ) {
+					long best = Long.MAX_VALUE;
+					int bestP = 0;
+					for ( int p = 0; p < prevK; p++ ) {
+						long cost = prevCost[ p ] + matrix[ p * k + c ];
+						if ( cost < best ) {
+							best = cost;
+							bestP = p;
+						}
+					}
+					back[ chordi ][ c ] = bestP;
+					curCost[ c ] = best + voicing.getScore();
+					c++;
+				}
+			}
+			int [] swapFrets = prevFrets; prevFrets = curFrets; curFrets = swapFrets;
+			long [] swapCost = prevCost; prevCost = curCost; curCost = swapCost;
+			prevK = k;
+			chordi++;
+		}
+
+		int last = 0;
+		for ( int c = 1; c < prevK; c++ ) {
+			if ( prevCost[ c ] < prevCost[ last ] )
+				last = c;
+		}
+		lastCost = prevCost[ last ];
+		for ( int i = n - 1; i >= 0; i-- ) {
+			path[ i ] = last;
+			last = back[ i ][ last ];
+		}
+		return path;
+	}
+
+	/** Returns the total cost of the last path, scores plus transitions. */
+	public long getLastCost() {
+		return lastCost;
+	}
+
+	/** Fills costs[ p * toCount + c ] with the transition cost of each from row p to each to row c.
+	 * Rows are frets per string, NOT_PLAYED for an unplayed string.
+	 */
+	protected void getCosts( final int [] from, int fromCount, final int [] to, int toCount, int strings, final int [] costs ) {
+		for ( int p = 0; p < fromCount; p++ ) {
+			int fromRow = p * strings;
+			for ( int c = 0; c < toCount; c++ ) {
+				int toRow = c * strings;
+				int moved = 0;
+				int changed = 0;
+				for ( int s = 0; s < strings; s++ ) {
+					int a = from[ fromRow + s ];
+					int b = to[ toRow + s ];
+					if (( a >= 0 ) && ( b >= 0 ))
+						moved += Math.abs( a - b );
+					else if (( a >= 0 ) || ( b >= 0 ))
+						changed++;
+				}
+				costs[ p * toCount + c ] = movementWeight * moved + stringChangePenalty * changed;
+			}
+		}
+	}
+
+	/** Writes the frets of the voicing per string into the row at the offset.
+	 * A string played more than once keeps its highest fret.
+	 */
+	protected static void flatten( final LocationList voicing, final int [] rows, int offset, int strings ) {
+		for ( int s = 0; s < strings; s++ )
+			rows[ offset + s ] = NOT_PLAYED;
+		for ( Location location : voicing ) {
+			int s = location.getString();
+			if (( s >= 0 ) && ( s < strings ))
+				rows[ offset + s ] = Math.max( rows[ offset + s ], location.getFret() );
+		}
+	}
+
+	/** Returns one more than the highest string of the voicing. */
+	protected static int getStringCount( final LocationList voicing ) {
+		int count = 0;
+		for ( Location location : voicing )
+			count = Math.max( count, location.getString() + 1 );
+		return count;
+	}
+
+	protected final int movementWeight;
+	protected final int stringChangePenalty;
+	protected long lastCost = 0;
+}
@@ -0,0 +1,126 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A block of voicings held as a structure of arrays, for {@link ChordRank#compositeScores}.
+ * <p>
+ * Each voicing takes a row of width slots in a strings array and a frets array,
+ * plus its location count in a lengths array. Rows are contiguous, so scoring a block
+ * is one pass over primitive arrays with no Location objects. Voicings may have up to
+ * width locations, on strings 0 to 63. {@link clear} keeps the arrays for reuse.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoicingBlock {
+	public static final int DEFAULT_WIDTH = 8;
+	public static final int DEFAULT_CAPACITY = 1024;
+	/** Highest string a block may hold, so distinct strings fit one long mask. */
+	public static final int MAX_STRING = LocationList.MASK_STRINGS - 1;
+
+	public VoicingBlock() {
+		this( DEFAULT_CAPACITY, DEFAULT_WIDTH );
+	}
+
+	/** A block of capacity voicings of up to width locations. The block grows past capacity as needed. */
+	public VoicingBlock( int capacity, int width ) {
+		if (( capacity < 1 ) || ( width < 1 ))
+			throw new IllegalArgumentException( "Capacity " + capacity + " and width " + width + " must be positive." );
+		this.width = width;
+		strings = new int[ capacity * width ];
+		frets = new int[ capacity * width ];
+		lengths = new int[ capacity ];
+	}
+
+	/** Adds the locations as the next voicing. Returns its index. */
+	public int add( final LocationList locations ) {
+		int length = ( null == locations ) ? 0 : locations.size();
+		int row = startRow( length );
+		int i = row * width;
+		if ( null != locations ) {
+			for ( Location location : locations )
+				set( i++, location.getString(), location.getFret() );
+		}
+		return row;
+	}
+
+	/** Adds the packed locations ({@link Location#pack}) as the next voicing. Returns its index. */
+	public int add( final int [] packed, int length ) {
+		int row = startRow( length );
+		int i = row * width;
+		for ( int p = 0; p < length; p++ )
+			set( i++, Location.packedString( packed[ p ] ), Location.packedFret( packed[ p ] ));
+		return row;
+	}
+
+	/** Adds each voicing in order. Returns this block. */
+	public VoicingBlock addAll( final List<LocationList> voicings ) {
+		for ( LocationList locations : voicings )
+			add( locations );
+		return this;
+	}
+
+	/** Returns the number of voicings. */
+	public int size() {
+		return size;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	/** Returns the location count of the voicing. */
+	public int getLength( int v ) {
+		check( v );
+		return lengths[ v ];
+	}
+
+	/** Returns the voicing as a new location list. */
+	public LocationList getLocations( int v ) {
+		check( v );
+		LocationList locations = new LocationList();
+		for ( int i = v * width; i < v * width + lengths[ v ]; i++ )
+			locations.add( new Location( strings[ i ], frets[ i ] ));
+		return locations;
+	}
+
+	/** Removes all voicings, keeping the arrays. */
+	public void clear() {
+		size = 0;
+	}
+
+	/** Claims the next row for a voicing of the length, growing the arrays if needed. */
+	protected int startRow( int length ) {
+		if (( length < 0 ) || ( length > width ))
+			throw new IllegalArgumentException( "Voicing of " + length + " locations does not fit width " + width + "." );
+		if ( size == lengths.length ) {
+			int capacity = 2 * lengths.length;
+			strings = Arrays.copyOf( strings, capacity * width );
+			frets = Arrays.copyOf( frets, capacity * width );
+			lengths = Arrays.copyOf( lengths, capacity );
+		}
+		lengths[ size ] = length;
+		return size++;
+	}
+
+	protected void set( int i, int string, int fret ) {
+		if (( string < 0 ) || ( string > MAX_STRING )) {
+			size--;
+			throw new IllegalArgumentException( "String " + string + " is outside 0 to " + MAX_STRING + "." );
+		}
+		strings[ i ] = string;
+		frets[ i ] = fret;
+	}
+
+	protected void check( int v ) {
+		if (( v < 0 ) || ( v >= size ))
+			throw new IndexOutOfBoundsException( "Voicing " + v + ", size " + size );
+	}
+
+	protected final int width;
+	protected int [] strings;
+	protected int [] frets;
+	protected int [] lengths;
+	protected int size = 0;
+}
@@ -0,0 +1,424 @@
+package frets.main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Precomputed top ranked voicings for every fretboard, formula and root.
+ * <p>
+ * {@link build} ranks each combination with {@link VoicingSearch}, one pool task per
+ * fretboard and formula. The results are saved as a compact binary file:
+ * <pre>
+ *    header     magic, version, ranker settings, top n
+ *    fretboards count, then name and {@link Fretboard#getFingerprint} of each
+ *    formulas   count, then name and formula of each
+ *    offsets    one int per (fretboard, formula, root) entry, plus the data length
+ *    data       per entry a voicing count, per voicing a location count,
+ *               per location a string byte and a fret byte
+ * </pre>
+ * All fields are big endian, at fixed positions once the header strings are read.
+ * A database is always read from one buffer of this image. {@link map} maps a file with
+ * {@link FileChannel#map}, so the offsets and voicings are never copied to the heap.
+ * {@link getVoicings} reads one offset and decodes only that entry into
+ * {@link PackedLocationList} records, without search. Mapped files must be under 2 GB.
+ * <p>
+ * Fretboards are matched by fingerprint, so a changed fretboard is not answered from the file.
+ * {@link build} stores every chord formula that {@link PitchClassSet#getFormulaSemitones} parses,
+ * altered extensions such as b9 and #9 and double flats such as bb7 included.
+ * {@link topK} falls back to a live search for custom formulas, other fretboards,
+ * other ChordRank settings, or more voicings than were stored.
+ * <p>
+ * Run {@link main} to build a file: <code>VoicingDatabase outputFile [topN [chordRankName]]</code>.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoicingDatabase {
+	public static final int MAGIC = 0x46524554; // "FRET"
+	public static final int VERSION = 1;
+	public static final int DEFAULT_TOPN = 10;
+	public static final int ROOT_COUNT = 12;
+	/** Strings, frets and counts are stored in one unsigned byte. */
+	public static final int MAX_BYTE = 255;
+	/** Ranker min fret, max fret, skip and same string penalties. */
+	public static final int SETTING_COUNT = 4;
+	public static final Charset UTF8 = Charset.forName( "UTF-8" );
+	public static final String CHORD_PROPS = "src/main/resources/frets/main/chord.properties";
+
+	/** Reads the header of a database image. The offsets and data stay in the buffer. */
+	protected VoicingDatabase( final ByteBuffer image ) throws IOException {
+		buffer = image.duplicate();
+		ByteBuffer header = image.duplicate();
+		header.position( 0 );
+		try {
+			if ( MAGIC != header.getInt() )
+				throw new IOException( "Not a voicing database." );
+			int version = header.getInt();
+			if ( VERSION != version )
+				throw new IOException( "Voicing database version " + version + " is not " + VERSION + "." );
+			settings = new int[ SETTING_COUNT ];
+			for ( int i = 0; i < settings.length; i++ )
+				settings[ i ] = header.getInt();
+			topN = header.getInt();
+			int fretboardCount = header.getInt();
+			fretboardNames = new String[ fretboardCount ];
+			fingerprints = new String[ fretboardCount ];
+			for ( int i = 0; i < fretboardCount; i++ ) {
+				fretboardNames[ i ] = getUTF( header );
+				fingerprints[ i ] = getUTF( header );
+			}
+			int formulaCount = header.getInt();
+			formulaNames = new String[ formulaCount ];
+			formulas = new String[ formulaCount ];
+			for ( int i = 0; i < formulaCount; i++ ) {
+				formulaNames[ i ] = getUTF( header );
+				formulas[ i ] = getUTF( header );
+			}
+			entryCount = fretboardCount * formulaCount * ROOT_COUNT;
+			offsetsStart = header.position();
+			dataStart = offsetsStart + 4 * ( entryCount + 1 );
+			if ( dataStart + (long) buffer.getInt( dataStart - 4 ) > buffer.limit() )
+				throw new IOException( "Voicing database is truncated." );
+		} catch ( RuntimeException e ) {
+			// Buffer underflow and bad string lengths are format errors.
+			throw new IOException( "Voicing database header is not readable.", e );
+		}
+		for ( int i = 0; i < fingerprints.length; i++ )
+			fretboardIndex.put( fingerprints[ i ], i );
+		for ( int i = 0; i < formulas.length; i++ ) {
+			formulaIndex.put( formulas[ i ], i );
+			formulaIndex.put( formulaNames[ i ], i );
+		}
+	}
+
+	/** Builds a database of the top n voicings of every formula and root on every fretboard, ranked on the pool. */
+	public static VoicingDatabase build( final List<Fretboard> fretboards, final List<Formula> formulaList,
+		final ChordRank ranker, final int topN, final ForkJoinPool pool ) {
+		if (( null == ranker ) || ( ChordRank.class != ranker.getClass() ))
+			throw new IllegalArgumentException( "A plain ChordRank must be provided to build a database, not " + ranker + "." );
+		if (( topN < 1 ) || ( topN > MAX_BYTE ))
+			throw new IllegalArgumentException( "Top n " + topN + " must be in 1.." + MAX_BYTE + "." );
+		String [] fretboardNames = new String[ fretboards.size() ];
+		String [] fingerprints = new String[ fretboards.size() ];
+		String [] formulaNames = new String[ formulaList.size() ];
+		String [] formulas = new String[ formulaList.size() ];
+		int formulai = 0;
+		for ( Formula formula : formulaList ) {
+			formulaNames[ formulai ] = formula.getName();
+			formulas[ formulai ] = formula.getFormula();
+			formulai++;
+		}
+
+		List<Callable<byte [][]>> tasks = new LinkedList<Callable<byte [][]>>();
+		int fretboardi = 0;
+		for ( final Fretboard fretboard : fretboards ) {
+			fretboardNames[ fretboardi ] = fretboard.getMetaName();
+			fingerprints[ fretboardi ] = fretboard.getFingerprint();
+			fretboard.getIndex(); // build once, before the tasks share it
+			for ( final String formula : formulas ) {
+				tasks.add( new Callable<byte [][]>() {
+					public byte [][] call() {
+						byte [][] entries = new byte[ ROOT_COUNT ][];
+						for ( int root = 0; root < ROOT_COUNT; root++ )
+							entries[ root ] = encode( rank( fretboard, formula, new Note( root ), ranker, topN ));
+						return entries;
+					}
+				});
+			}
+			fretboardi++;
+		}
+
+		int [] offsets = new int[ tasks.size() * ROOT_COUNT + 1 ];
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		int entry = 0;
+		try {
+			for ( Future<byte [][]> result : pool.invokeAll( tasks )) {
+				for ( byte [] encoded : result.get() ) {
+					offsets[ entry++ ] = data.size();
+					data.write( encoded, 0, encoded.length );
+				}
+			}
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IllegalArgumentException( "Voicing database build was interrupted.", e );
+		} catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof RuntimeException )
+				throw (RuntimeException) e.getCause();
+			throw new IllegalArgumentException( "Voicing database build failed.", e.getCause() );
+		}
+		offsets[ entry ] = data.size();
+		ByteArrayOutputStream image = new ByteArrayOutputStream();
+		try {
+			write( image, getSettings( ranker ), topN, fretboardNames, fingerprints, formulaNames, formulas, offsets, data.toByteArray() );
+			return new VoicingDatabase( ByteBuffer.wrap( image.toByteArray() ));
+		} catch ( IOException e ) {
+			throw new IllegalArgumentException( "Voicing database build failed.", e );
+		}
+	}
+
+	/** Builds a database of the chord formulas and roots on all standard fretboards, ranked on the shared pool. */
+	public static VoicingDatabase build( final ChordRank ranker, int topN ) throws IOException {
+		List<Fretboard> fretboards = new LinkedList<Fretboard>();
+		for ( String name : Fretboard.getFretboardNames() )
+			fretboards.add( Fretboard.getInstanceFromName( name ));
+		return build( fretboards, getPlayableFormulas( FormulaList.getFormulas( CHORD_PROPS )), ranker, topN, RankTask.POOL );
+	}
+
+	/** Returns the formulas whose intervals all parse with {@link PitchClassSet#getFormulaSemitones}, as {@link rank} does. */
+	public static List<Formula> getPlayableFormulas( final List<Formula> formulas ) {
+		List<Formula> playable = new LinkedList<Formula>();
+		for ( Formula formula : formulas ) {
+			if ( null == formula.getFormula() )
+				continue;
+			try {
+				PitchClassSet.getFormulaSemitones( formula.getFormula() );
+				playable.add( formula );
+			} catch ( IllegalArgumentException e ) {
+				// Not an interval or degree, such as a typo. Left to a live search.
+			}
+		}
+		return playable;
+	}
+
+	/** Returns the top k voicings of the formula from the root, as stored by {@link build}.
+	 * Voicings span the ranker fret range, max fret included, and any octave of each note, best first.
+	 */
+	public static List<LocationList> rank( final Fretboard fretboard, final String formula, final Note root, final ChordRank ranker, int k ) {
+		// Start at the lowest root on the fretboard. Octave variations cover the rest.
+		int low = fretboard.getLowPitch();
+		int pitch = low + ((( root.getValue() - low ) % ROOT_COUNT ) + ROOT_COUNT ) % ROOT_COUNT;
+		int [] pitches = PitchClassSet.getFormulaSemitones( formula );
+		for ( int i = 0; i < pitches.length; i++ )
+			pitches[ i ] += pitch;
+		// The ranker max fret is inclusive, the variations max fret exclusive.
+		List<LocationList> variations = fretboard.getVariations( null, pitches,
+			ranker.getMinFret(), ranker.getMaxFret() + 1, Fretboard.OCTAVES );
+		List<LocationList> best = new LinkedList<LocationList>();
+		if ( null == variations )
+			return best;
+		for ( RankedLocationList ranked : new VoicingSearch( variations, ranker ).topK( k ))
+			best.add( ranked.getLocations() );
+		return best;
+	}
+
+	/** Returns the stored voicings, best first, or null if the fretboard, formula or ranker is not in this database. */
+	public List<LocationList> getVoicings( final Fretboard fretboard, final String formula, final Note root, final ChordRank ranker ) {
+		if (( null == fretboard ) || ( null == root ) || !matches( ranker ))
+			return null;
+		Integer fretboardi = fretboardIndex.get( fretboard.getFingerprint() );
+		Integer formulai = formulaIndex.get( formula );
+		if (( null == fretboardi ) || ( null == formulai ))
+			return null;
+		int entry = ( fretboardi * formulas.length + formulai ) * ROOT_COUNT + root.getValue() % ROOT_COUNT;
+		return decode( buffer, dataStart + buffer.getInt( offsetsStart + 4 * entry ));
+	}
+
+	/** Returns the k best voicings, best first, from this database if it holds them, else by a live search.
+	 * The formula may be a name stored in this database, or a formula such as "1-3-5".
+	 */
+	public List<LocationList> topK( final Fretboard fretboard, final String formula, final Note root, final ChordRank ranker, int k ) {
+		if ( k <= topN ) {
+			List<LocationList> stored = getVoicings( fretboard, formula, root, ranker );
+			if ( null != stored )
+				return ( stored.size() > k ) ? new LinkedList<LocationList>( stored.subList( 0, k )) : stored;
+		}
+		Integer formulai = formulaIndex.get( formula );
+		return rank( fretboard, ( null == formulai ) ? formula : formulas[ formulai ], root, ranker, k );
+	}
+
+	/** Returns true if voicings of this database were ranked with the same settings as the ranker. */
+	public boolean matches( final ChordRank ranker ) {
+		return ( null != ranker ) && ( ChordRank.class == ranker.getClass() ) && Arrays.equals( settings, getSettings( ranker ));
+	}
+
+	public int getTopN() {
+		return topN;
+	}
+
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	/** Returns the number of bytes of packed voicings. */
+	public int getDataSize() {
+		return buffer.getInt( dataStart - 4 );
+	}
+
+	/** Returns true if the image of this database is a mapped file. */
+	public boolean isMapped() {
+		return buffer.isDirect();
+	}
+
+	public String [] getFretboardNames() {
+		return fretboardNames.clone();
+	}
+
+	public String [] getFormulaNames() {
+		return formulaNames.clone();
+	}
+
+	/** Writes this database in the binary format. */
+	public void write( final OutputStream os ) throws IOException {
+		ByteBuffer image = buffer.duplicate();
+		image.position( 0 );
+		Channels.newChannel( os ).write( image );
+		os.flush();
+	}
+
+	/** Writes this database to the named file. */
+	public void write( String fileName ) throws IOException {
+		OutputStream os = new FileOutputStream( fileName );
+		try {
+			write( os );
+		} finally {
+			os.close();
+		}
+	}
+
+	/** Reads a database in the binary format into the heap. */
+	public static VoicingDatabase read( final InputStream is ) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte [] chunk = new byte[ 8192 ];
+		for ( int count = is.read( chunk ); count >= 0; count = is.read( chunk ))
+			bytes.write( chunk, 0, count );
+		return new VoicingDatabase( ByteBuffer.wrap( bytes.toByteArray() ));
+	}
+
+	/** Maps a database file read only. Voicings are decoded from the mapped pages as they are queried.
+	 * The mapping stays valid after the file is closed.
+	 */
+	public static VoicingDatabase map( String fileName ) throws IOException {
+		RandomAccessFile file = new RandomAccessFile( fileName, "r" );
+		try {
+			FileChannel channel = file.getChannel();
+			if ( channel.size() > Integer.MAX_VALUE )
+				throw new IOException( "Voicing database " + fileName + " is over 2 GB." );
+			return new VoicingDatabase( channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() ));
+		} finally {
+			file.close();
+		}
+	}
+
+	/** Builds a database file of the standard fretboards and chords.
+	 * Arguments are the output file name, then optionally top n and a ChordRank name.
+	 */
+	public static void main( String [] args ) throws IOException {
+		if ( args.length < 1 ) {
+			System.out.println( "Usage: VoicingDatabase outputFile [topN [chordRankName]]" );
+			return;
+		}
+		int topN = ( args.length > 1 ) ? Integer.parseInt( args[ 1 ] ) : DEFAULT_TOPN;
+		ChordRank ranker = ChordRank.instance.getInstance(( args.length > 2 ) ? args[ 2 ] : ChordRank.STANDARD );
+		if ( null == ranker )
+			throw new IllegalArgumentException( "ChordRank \"" + args[ 2 ] + "\" not found." );
+		long start = System.currentTimeMillis();
+		VoicingDatabase database = build( ranker, topN );
+		database.write( args[ 0 ] );
+		System.out.println( "VoicingDatabase wrote " + database.getEntryCount() + " entries, " + database.getDataSize()
+			+ " data bytes, to " + args[ 0 ] + " in " + ( System.currentTimeMillis() - start ) + " ms." );
+	}
+
+	/** Returns the ranker settings stored in a database. */
+	protected static int [] getSettings( final ChordRank ranker ) {
+		return new int [] { ranker.getMinFret(), ranker.getMaxFret(), ranker.getSkipStringPenalty(), ranker.getSameStringPenalty() };
+	}
+
+	/** Writes the binary format from its parts. */
+	protected static void write( final OutputStream os, final int [] settings, int topN, final String [] fretboardNames, final String [] fingerprints,
+		final String [] formulaNames, final String [] formulas, final int [] offsets, final byte [] data ) throws IOException {
+		DataOutputStream out = new DataOutputStream( os );
+		out.writeInt( MAGIC );
+		out.writeInt( VERSION );
+		for ( int setting : settings )
+			out.writeInt( setting );
+		out.writeInt( topN );
+		out.writeInt( fretboardNames.length );
+		for ( int i = 0; i < fretboardNames.length; i++ ) {
+			out.writeUTF( null == fretboardNames[ i ] ? "" : fretboardNames[ i ] );
+			out.writeUTF( fingerprints[ i ] );
+		}
+		out.writeInt( formulas.length );
+		for ( int i = 0; i < formulas.length; i++ ) {
+			out.writeUTF( formulaNames[ i ] );
+			out.writeUTF( formulas[ i ] );
+		}
+		for ( int offset : offsets )
+			out.writeInt( offset );
+		out.write( data );
+		out.flush();
+	}
+
+	/** Reads a string written by {@link DataOutputStream#writeUTF}.
+	 * Names and formulas have no NUL or supplementary characters, where modified UTF-8 differs from UTF-8.
+	 */
+	protected static String getUTF( final ByteBuffer header ) {
+		byte [] bytes = new byte[ header.getShort() & 0xFFFF ];
+		header.get( bytes );
+		return new String( bytes, UTF8 );
+	}
+
+	/** Encodes voicings as a voicing count, then a location count and string, fret bytes per voicing. */
+	protected static byte [] encode( final List<LocationList> voicings ) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write( voicings.size() );
+		for ( LocationList voicing : voicings ) {
+			if ( voicing.size() > MAX_BYTE )
+				throw new IllegalArgumentException( "Voicing " + voicing + " has more than " + MAX_BYTE + " locations." );
+			bytes.write( voicing.size() );
+			for ( Location location : voicing ) {
+				if (( location.getString() < 0 ) || ( location.getString() > MAX_BYTE )
+					|| ( location.getFret() < 0 ) || ( location.getFret() > MAX_BYTE ))
+					throw new IllegalArgumentException( "Location " + location + " does not fit in bytes." );
+				bytes.write( location.getString() );
+				bytes.write( location.getFret() );
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	/** Decodes the voicings encoded at the buffer position. Only this entry is read. */
+	protected static List<LocationList> decode( final ByteBuffer buffer, int position ) {
+		List<LocationList> voicings = new LinkedList<LocationList>();
+		int voicingCount = buffer.get( position++ ) & 0xFF;
+		for ( int v = 0; v < voicingCount; v++ ) {
+			int locationCount = buffer.get( position++ ) & 0xFF;
+			PackedLocationList voicing = new PackedLocationList( locationCount );
+			for ( int l = 0; l < locationCount; l++ ) {
+				voicing.addPacked( Location.pack( buffer.get( position ) & 0xFF, buffer.get( position + 1 ) & 0xFF ));
+				position += 2;
+			}
+			voicings.add( voicing );
+		}
+		return voicings;
+	}
+
+	protected final ByteBuffer buffer;
+	protected final int offsetsStart;
+	protected final int dataStart;
+	protected final int entryCount;
+	protected final int [] settings;
+	protected final int topN;
+	protected final String [] fretboardNames;
+	protected final String [] fingerprints;
+	protected final String [] formulaNames;
+	protected final String [] formulas;
+	protected final Map<String,Integer> fretboardIndex = new HashMap<String,Integer>();
+	protected final Map<String,Integer> formulaIndex = new HashMap<String,Integer>();
+}
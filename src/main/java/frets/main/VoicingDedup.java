@@ -0,0 +1,140 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import frets.util.LongHashSet;
+
+/**
+ * Drops voicings that play the same locations as a voicing already seen, in any order.
+ * <p>
+ * With octave variations, or a note list that doubles a note, several permutations
+ * can pick the same locations in a different order. Each voicing is reduced to a
+ * canonical key: its locations numbered string * frets + fret, sorted, and packed
+ * into one long at a fixed number of bits per location. Keys are kept in a
+ * {@link LongHashSet}, so a seen voicing costs about one long.
+ * Voicings with too many locations to pack fall back to a set of canonical strings.
+ * <p>
+ * The key is exact, so distinct voicings are never dropped. Repeated locations
+ * are kept in the key, so a voicing playing one location twice differs from one playing it once.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoicingDedup {
+	/** Returned by getKey for a voicing that does not pack into a long. */
+	public static final long NO_KEY = -1L;
+
+	/** Dedups locations on strings 0..stringCount-1 and frets 0..fretCount-1. */
+	public VoicingDedup( int stringCount, int fretCount ) {
+		if (( stringCount < 1 ) || ( fretCount < 1 ))
+			throw new IllegalArgumentException( "Dedup needs at least one string and fret, not " + stringCount + " and " + fretCount + "." );
+		this.fretCount = fretCount;
+		// Location values 1..stringCount*fretCount, 0 is reserved, so keys of different sizes differ.
+		long values = (long) stringCount * fretCount + 1;
+		bits = Long.SIZE - Long.numberOfLeadingZeros( values - 1 );
+		maxPacked = ( Long.SIZE - 1 ) / bits; // keys stay positive, never NO_KEY
+		valueLimit = (int) ( values - 1 );
+	}
+
+	/** Returns a dedup sized for the locations of the variations. */
+	public static VoicingDedup getInstance( final List<LocationList> variations ) {
+		int maxString = 0;
+		int maxFret = 0;
+		if ( null != variations ) {
+			for ( LocationList enharmonics : variations ) {
+				if ( null != enharmonics ) {
+					for ( Location location : enharmonics ) {
+						maxString = Math.max( maxString, location.getString() );
+						maxFret = Math.max( maxFret, location.getFret() );
+					}
+				}
+			}
+		}
+		return new VoicingDedup( maxString + 1, maxFret + 1 );
+	}
+
+	/** Adds the voicing. Returns true if no voicing with the same locations was added before. */
+	public boolean add( final LocationList voicing ) {
+		long key = getKey( voicing );
+		if ( NO_KEY != key )
+			return keys.add( key );
+		return others.add( getCanonical( voicing ).toString() );
+	}
+
+	/** Returns the number of distinct voicings added. */
+	public int size() {
+		return keys.size() + others.size();
+	}
+
+	/** Returns the packed canonical key of the voicing, or NO_KEY if it does not fit in a long. */
+	public long getKey( final LocationList voicing ) {
+		int n = voicing.size();
+		if ( n > maxPacked )
+			return NO_KEY;
+		// Insertion sort into a scratch array. Voicings are a handful of locations.
+		if ( scratch.length < n )
+			scratch = new int[ n ];
+		for ( int i = 0; i < n; i++ ) {
+			Location location = voicing.get( i );
+			int string = location.getString();
+			int fret = location.getFret();
+			if (( string < 0 ) || ( fret < 0 ) || ( fret >= fretCount ))
+				return NO_KEY;
+			int value = string * fretCount + fret + 1;
+			if ( value > valueLimit )
+				return NO_KEY;
+			int j = i;
+			while (( j > 0 ) && ( scratch[ j - 1 ] > value )) {
+				scratch[ j ] = scratch[ j - 1 ];
+				j--;
+			}
+			scratch[ j ] = value;
+		}
+		long key = 0L;
+		for ( int i = 0; i < n; i++ )
+			key = ( key << bits ) | scratch[ i ];
+		return key;
+	}
+
+	/** Returns a sorted copy of the voicing. Locations are shared with the voicing. */
+	public static LocationList getCanonical( final LocationList voicing ) {
+		Location [] sorted = voicing.toArray( new Location[ voicing.size() ] );
+		Arrays.sort( sorted );
+		LocationList canonical = new LocationList();
+		for ( Location location : sorted )
+			canonical.add( location );
+		return canonical;
+	}
+
+	/** Returns the voicings less those with the same locations as an earlier one, keeping the order. */
+	public List<LocationList> dedup( final Iterable<LocationList> voicings ) {
+		List<LocationList> distinct = new LinkedList<LocationList>();
+		for ( LocationList voicing : voicings ) {
+			if ( add( voicing ))
+				distinct.add( voicing );
+		}
+		return distinct;
+	}
+
+	/** Returns the ranked voicings less those with the same locations as an earlier one, keeping the order.
+	 * Equal locations score the same, so on a ranked list the lowest permutation number is kept. */
+	public List<RankedLocationList> dedupRanked( final Iterable<RankedLocationList> voicings ) {
+		List<RankedLocationList> distinct = new LinkedList<RankedLocationList>();
+		for ( RankedLocationList voicing : voicings ) {
+			if ( add( voicing.getLocations() ))
+				distinct.add( voicing );
+		}
+		return distinct;
+	}
+
+	protected final int fretCount;
+	protected final int bits;
+	protected final int maxPacked;
+	protected final int valueLimit;
+	protected final LongHashSet keys = new LongHashSet();
+	protected final Set<String> others = new HashSet<String>();
+	protected int [] scratch = new int[ 8 ];
+}
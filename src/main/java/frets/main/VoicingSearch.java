@@ -0,0 +1,179 @@
+package frets.main;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the best ranked permutations of a variation list by branch and bound.
+ * <p>
+ * Rather than scoring every permutation, this walks the variation digits depth first,
+ * choosing one location per digit, and keeps a lower bound of the final
+ * {@link ChordRank#getSum} score of any permutation below the current partial voicing:
+ *    - fret bounds: score so far plus the best score each remaining digit can add
+ *    - fret span: partial span, widened by frets each remaining digit must reach
+ *    - same string: repeats so far, which can only grow
+ *    - skip strings: interior gaps so far, less one per remaining digit that might fill a gap
+ * Once k voicings are held, any subtree whose bound cannot beat the k-th best is skipped.
+ * <p>
+ * Digits are visited most significant first, so leaves arrive in permutation number order
+ * and the results are identical to {@link Fretboard#topKRanked}.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoicingSearch {
+	public VoicingSearch( final List<LocationList> variations, final ChordRank ranker ) {
+		if ( null == ranker )
+			throw new IllegalArgumentException( "A ranker must be provided to rank permutations." );
+		this.variations = variations;
+		this.ranker = ranker;
+
+		digits = Permutations.getDigits( variations );
+		weights = Permutations.getWeights( digits );
+		boolean valid = Permutations.fitsStringMask( digits );
+		int digitCount = digits.length;
+
+		// Bounds of digits 0..d-1, the digits remaining below digit d.
+		boundsBelow = new int[ digitCount + 1 ];
+		lowestMaxBelow = new int[ digitCount + 1 ];
+		highestMinBelow = new int[ digitCount + 1 ];
+		lowestMaxBelow[ 0 ] = Integer.MAX_VALUE;
+		highestMinBelow[ 0 ] = Integer.MIN_VALUE;
+		for ( int d = 0; d < digitCount; d++ ) {
+			int bestBounds = Integer.MAX_VALUE;
+			int digitMin = Integer.MAX_VALUE;
+			int digitMax = Integer.MIN_VALUE;
+			for ( Location location : digits[ d ] ) {
+				int fret = location.getFret();
+				bestBounds = Math.min( bestBounds, ranker.fretBoundsScore( fret ));
+				digitMin = Math.min( digitMin, fret );
+				digitMax = Math.max( digitMax, fret );
+			}
+			boundsBelow[ d + 1 ] = boundsBelow[ d ] + bestBounds;
+			lowestMaxBelow[ d + 1 ] = Math.min( lowestMaxBelow[ d ], digitMax );
+			highestMinBelow[ d + 1 ] = Math.max( highestMinBelow[ d ], digitMin );
+		}
+
+		// The bounds only hold for the stock scoring with non-negative penalties.
+		prunable = valid && ( ChordRank.class == ranker.getClass() ) &&
+			( ranker.getSkipStringPenalty() >= 0 ) && ( ranker.getSameStringPenalty() >= 0 );
+	}
+
+	/** Returns whether this search can prune. If not, {@link topK} scores every permutation. */
+	public boolean isPrunable() {
+		return prunable;
+	}
+
+	/** Returns the number of permutations scored completely by the last search. */
+	public long getLeafCount() {
+		return leafCount;
+	}
+
+	/** Returns the number of partial voicings skipped with their subtrees by the last search. */
+	public long getPruneCount() {
+		return pruneCount;
+	}
+
+	/** Returns the k best permutations, best first, with their scores and permutation numbers. */
+	public List<RankedLocationList> topK( int k ) {
+		leafCount = 0;
+		pruneCount = 0;
+		if ( !prunable )
+			return Fretboard.topKRanked( variations, ranker, k );
+
+		List<RankedLocationList> best = new LinkedList<RankedLocationList>();
+		long count = Fretboard.getPermutationCount( variations );
+		if (( k < 1 ) || ( 0 == count )) return best;
+
+		capacity = (int) Math.min( (long) k, count );
+		heap = new PriorityQueue<RankedLocationList>( capacity + 1, Collections.reverseOrder() );
+		chosen = new Location[ digits.length ];
+		search( digits.length - 1, 0L, 0L, 0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE );
+
+		RankedLocationList [] sorted = heap.toArray( new RankedLocationList[ heap.size() ] );
+		Arrays.sort( sorted );
+		best.addAll( Arrays.asList( sorted ));
+		heap = null;
+		chosen = null;
+		return best;
+	}
+
+	/** Chooses each location of digit d, then recurses to the next lower digit. */
+	protected void search( int d, long permutation, long stringMask, int repeats,
+		int boundsScore, int minFret, int maxFret ) {
+		for ( int choice = 0; choice < digits[ d ].length; choice++ ) {
+			Location location = digits[ d ][ choice ];
+			int stringi = location.getString();
+			int fret = location.getFret();
+			long nextMask = stringMask | ( 1L << stringi );
+			int nextRepeats = repeats + (( stringMask == nextMask ) ? 1 : 0 );
+			int nextBounds = boundsScore + ranker.fretBoundsScore( fret );
+			int nextMin = Math.min( minFret, fret );
+			int nextMax = Math.max( maxFret, fret );
+			long nextPermutation = permutation + choice * weights[ d ];
+
+			if ( 0 == d ) {
+				leafCount++;
+				int score = nextBounds + ranker.fretSpanScore( nextMax - nextMin ) +
+					gaps( nextMask ) * ranker.getSkipStringPenalty() +
+					nextRepeats * ranker.getSameStringPenalty();
+				if (( heap.size() < capacity ) || ( score < heap.peek().getScore() )) {
+					chosen[ d ] = location;
+					heap.add( new RankedLocationList( getLocations(), nextPermutation, score ));
+					if ( heap.size() > capacity )
+						heap.poll();
+				}
+			} else {
+				if ( heap.size() == capacity ) {
+					// Later leaves have higher permutation numbers, so ties with the k-th best also lose.
+					int spanMin = Math.min( nextMin, lowestMaxBelow[ d ] );
+					int spanMax = Math.max( nextMax, highestMinBelow[ d ] );
+					int bound = nextBounds + boundsBelow[ d ] +
+						ranker.fretSpanScore( spanMax - spanMin ) +
+						Math.max( 0, gaps( nextMask ) - d ) * ranker.getSkipStringPenalty() +
+						nextRepeats * ranker.getSameStringPenalty();
+					if ( bound >= heap.peek().getScore() ) {
+						pruneCount++;
+						continue;
+					}
+				}
+				chosen[ d ] = location;
+				search( d - 1, nextPermutation, nextMask, nextRepeats, nextBounds, nextMin, nextMax );
+			}
+		}
+	}
+
+	/** Returns the number of unplayed strings between the lowest and highest played strings. */
+	protected static int gaps( long stringMask ) {
+		if ( 0L == stringMask ) return 0;
+		int low = Long.numberOfTrailingZeros( stringMask );
+		int high = LocationList.MASK_STRINGS - 1 - Long.numberOfLeadingZeros( stringMask );
+		return ( high - low + 1 ) - Long.bitCount( stringMask );
+	}
+
+	/** Returns the chosen locations in {@link Fretboard#getPermutation} order. */
+	protected LocationList getLocations() {
+		LocationList locations = new LocationList();
+		for ( int d = digits.length - 1; d >= 0; d-- )
+			locations.add( chosen[ d ] );
+		return locations;
+	}
+
+	protected final List<LocationList> variations;
+	protected final ChordRank ranker;
+	protected final Location [][] digits;
+	protected final long [] weights;
+	protected final int [] boundsBelow;
+	protected final int [] lowestMaxBelow;
+	protected final int [] highestMinBelow;
+	protected final boolean prunable;
+
+	// Search state
+	protected int capacity;
+	protected PriorityQueue<RankedLocationList> heap;
+	protected Location [] chosen;
+	protected long leafCount;
+	protected long pruneCount;
+}
@@ -0,0 +1,113 @@
+package frets.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs, stored by open addressing in one long array.
+ * <p>
+ * Each entry costs one table slot, eight bytes at a load of at most one half,
+ * rather than a boxed Long and a hash map node. Slots are probed linearly from
+ * a mixed hash of the key. Zero marks an empty slot, so the key zero is kept in
+ * a separate flag. Removal is not supported.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class LongHashSet {
+	public static final int DEFAULT_CAPACITY = 16;
+
+	public LongHashSet() {
+		this( DEFAULT_CAPACITY );
+	}
+
+	/** Makes a set that holds the expected number of keys before growing. */
+	public LongHashSet( int expected ) {
+		int capacity = DEFAULT_CAPACITY;
+		while ( capacity < 2L * expected )
+			capacity <<= 1;
+		table = new long[ capacity ];
+	}
+
+	/** Adds the key. Returns true if it was not already in the set. */
+	public boolean add( long key ) {
+		if ( 0L == key ) {
+			if ( hasZero )
+				return false;
+			hasZero = true;
+			size++;
+			return true;
+		}
+		int mask = table.length - 1;
+		int slot = mix( key ) & mask;
+		while ( 0L != table[ slot ] ) {
+			if ( key == table[ slot ] )
+				return false;
+			slot = ( slot + 1 ) & mask;
+		}
+		table[ slot ] = key;
+		size++;
+		if ( 2 * size > table.length )
+			grow();
+		return true;
+	}
+
+	public boolean contains( long key ) {
+		if ( 0L == key )
+			return hasZero;
+		int mask = table.length - 1;
+		int slot = mix( key ) & mask;
+		while ( 0L != table[ slot ] ) {
+			if ( key == table[ slot ] )
+				return true;
+			slot = ( slot + 1 ) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return 0 == size;
+	}
+
+	public void clear() {
+		Arrays.fill( table, 0L );
+		hasZero = false;
+		size = 0;
+	}
+
+	/** Returns the number of table slots, for sizing. */
+	public int getCapacity() {
+		return table.length;
+	}
+
+	/** Doubles the table and reinserts the keys. */
+	protected void grow() {
+		long [] old = table;
+		table = new long[ old.length * 2 ];
+		int mask = table.length - 1;
+		for ( long key : old ) {
+			if ( 0L != key ) {
+				int slot = mix( key ) & mask;
+				while ( 0L != table[ slot ] )
+					slot = ( slot + 1 ) & mask;
+				table[ slot ] = key;
+			}
+		}
+	}
+
+	/** Spreads the key bits, so keys that differ only in high bits land in different slots. */
+	protected static int mix( long key ) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	protected long [] table;
+	protected boolean hasZero = false;
+	protected int size = 0;
+}
@@ -0,0 +1,115 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class ChordIdentifierTest {
+	@Test
+	public void testSets() {
+		assertEquals( "Major", 0x091, ChordIdentifier.getSet( new Formula( "maj", "Major", "1-3-5" )));
+		assertEquals( "Ninth wraps", 0x095, ChordIdentifier.getSet( new Formula( "add9", "Add 9", "1-3-5-9" )));
+		assertEquals( "Unknown formula", 0, ChordIdentifier.getSet( new Formula( "x", "x", "1-x7" )));
+	}
+
+	@Test
+	public void testIdentify() {
+		ChordIdentifier identifier = ChordIdentifier.getInstance();
+		assertTrue( "Formulas", identifier.getFormulaCount() > 70 );
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+
+		LocationList openC = new LocationList( "1-3,2-2,3-0,4-1,5-0" );
+		assertEquals( "Open C", "Cmaj", identifier.getBest( standard, openC ).getName() );
+		assertTrue( "Open C exact", identifier.getBest( standard, openC ).isExact() );
+
+		// A C E G is both Am7 and C6. The bass picks the root.
+		LocationList am7 = new LocationList( "1-0,2-2,3-0,4-1,5-0" );
+		List<ChordIdentifier.Match> matches = identifier.identify( standard, am7 );
+		assertEquals( "Am7", "Am7", matches.get( 0 ).getName() );
+		boolean c6 = false;
+		for ( ChordIdentifier.Match match : matches )
+			c6 |= "C6".equals( match.getName() );
+		assertTrue( "C6", c6 );
+
+		// C E Bb has no fifth.
+		ChordIdentifier.Match c7 = identifier.getBest( standard, new LocationList( "1-3,2-2,3-3,4-1" ));
+		assertEquals( "C7 no fifth", "C7", c7.getName() );
+		assertEquals( "Missing", 1, c7.getMissing() );
+		assertEquals( "Extra", 0, c7.getExtra() );
+
+		// Diminished seventh is symmetric, so every note names one.
+		assertEquals( "Dim7 roots", 4, identifier.identify( 0x249, ChordIdentifier.NO_BASS ).size() );
+		assertEquals( "Dim7", "o7", identifier.getBest( 0x249, 3 ).getFormula().getName() );
+		assertEquals( "Dim7 bass", 3, identifier.getBest( 0x249, 3 ).getRootValue() );
+
+		assertNull( "Empty", identifier.getBest( standard, new LocationList() ));
+		assertEquals( "Empty list", 0, identifier.identify( standard, new LocationList() ).size() );
+	}
+
+	@Test
+	public void testEveryFormula() throws IOException {
+		ChordIdentifier identifier = ChordIdentifier.getInstance();
+		List<Formula> formulas = new LinkedList<Formula>();
+		formulas.addAll( FormulaList.getFormulas( VoicingDatabase.CHORD_PROPS ));
+		formulas.addAll( FormulaList.getFormulas( ChordIdentifier.SCALE_PROPS ));
+		int count = 0;
+		for ( Formula formula : formulas ) {
+			int set = ChordIdentifier.getSet( formula );
+			if ( 0 == set )
+				continue;
+			count++;
+			for ( int root = 0; root < ChordIdentifier.PITCH_CLASSES; root++ ) {
+				boolean found = false;
+				for ( ChordIdentifier.Match match : identifier.identify( PitchClassSet.rotate( set, root ), ChordIdentifier.NO_BASS ))
+					found |= match.isExact() && formula.getName().equals( match.getFormula().getName() ) && ( root == match.getRootValue() );
+				assertTrue( formula.getName() + " root " + root, found );
+			}
+		}
+		assertTrue( "Formulas", count > 70 );
+	}
+
+	@Test
+	public void testThirteenth() {
+		ChordIdentifier identifier = ChordIdentifier.getInstance();
+		// C E G Bb D A, a 13 has a natural 13.
+		int c13 = PitchClassSet.fromFormula( "1-3-5-b7-9-13" ).transpose( Note.C.getValue() ).getBits();
+		assertEquals( "13 is a 6", PitchClassSet.fromFormula( "1-3-5-b7-9-6" ).transpose( Note.C.getValue() ).getBits(), c13 );
+		ChordIdentifier.Match best = identifier.getBest( c13, Note.C.getValue() );
+		assertEquals( "C13", "C13", best.getName() );
+		assertTrue( "C13 exact", best.isExact() );
+		// C E G Bb D Ab is not a 13.
+		int flat13 = PitchClassSet.fromFormula( "1-3-5-b7-9-b13" ).transpose( Note.C.getValue() ).getBits();
+		assertTrue( "Flat 13", !"C13".equals( identifier.getBest( flat13, Note.C.getValue() ).getName() ));
+	}
+
+	@Test
+	public void testVoicings() {
+		ChordIdentifier identifier = ChordIdentifier.getInstance();
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		String [] formulas = { "1-3-5-7", "1-b3-5-b7-9", "1-3-#5" };
+		for ( String formula : formulas ) {
+			for ( int root = 0; root < ChordIdentifier.PITCH_CLASSES; root++ ) {
+				NoteList notes = new NoteList( Note.plus( Note.GuitarLowE, root ), formula );
+				LocationList voicing = Fretboard.topK( standard.getVariations( notes, 0, 15, Fretboard.OCTAVES ), new ChordRank(), 1 ).get( 0 );
+				int set = ChordIdentifier.getSet( standard, voicing );
+				assertTrue( formula + " exact", identifier.isExact( set ));
+				boolean found = false;
+				for ( ChordIdentifier.Match match : identifier.identify( set, ChordIdentifier.NO_BASS )) {
+					found |= formula.equals( match.getFormula().getFormula() ) && ( match.getRootValue() == notes.get( 0 ).getValue() );
+				}
+				assertTrue( formula + " root " + root, found );
+			}
+		}
+	}
+}
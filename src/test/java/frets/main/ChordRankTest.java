@@ -1,10 +1,15 @@
 package frets.main;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -32,4 +37,102 @@ public class ChordRankTest {
 		String expected = "src" + PATH + "main" + PATH + "resources" + PATH + "frets" + PATH + "main" + PATH + "chordrank.standard.properties";
 		assertEquals("Location", expected, mock.getMetaLocation());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testPackedScores() {
+		ChordRank ranker = new ChordRank( 2, 7, 3, 5 );
+		List<LocationList> voicings = new LinkedList<LocationList>();
+		voicings.add( new LocationList() );
+		voicings.add( new LocationList( "0-0" ));
+		voicings.add( new LocationList( "0-1,0-3,2-9" ));
+		voicings.add( new LocationList( "5-12,1-0,3-4,3-4" ));
+		Random random = new Random( 24 );
+		for ( int v = 0; v < 5000; v++ ) {
+			LocationList locations = new LocationList();
+			int length = 1 + random.nextInt( VoicingBlock.DEFAULT_WIDTH );
+			for ( int i = 0; i < length; i++ )
+				locations.add( new Location( random.nextInt( 6 ), random.nextInt( 20 )));
+			voicings.add( locations );
+		}
+
+		VoicingBlock block = new VoicingBlock( 16, VoicingBlock.DEFAULT_WIDTH ).addAll( voicings );
+		assertEquals( "Block size", voicings.size(), block.size() );
+		int count = block.size();
+		int [] blockScores = new int[ ChordRank.SCORE_COUNT * count ];
+		ranker.compositeScores( block, blockScores );
+
+		int [] scores = new int[ ChordRank.SCORE_COUNT + 1 ];
+		int v = 0;
+		for ( LocationList locations : voicings ) {
+			int [] expected = ranker.compositeScore( locations );
+			PackedLocationList packed = new PackedLocationList( locations );
+			int [] values = packed.toPackedArray();
+			assertEquals( "Sum " + locations, ranker.getSum( locations ), ranker.getSum( values, values.length ));
+			assertEquals( "Returned sum " + locations, expected[ 0 ], ranker.compositeScore( values, values.length, scores, 1 ));
+			assertArrayEquals( "Composite " + locations, expected, Arrays.copyOfRange( scores, 1, 1 + ChordRank.SCORE_COUNT ));
+			for ( int c = 0; c < ChordRank.SCORE_COUNT; c++ )
+				assertEquals( "Block " + c + " " + locations, expected[ c ], blockScores[ c * count + v ] );
+			assertEquals( "Round trip", locations, block.getLocations( v ));
+			v++;
+		}
+
+		// Strings past the block mask are still scored by the packed methods.
+		LocationList wide = new LocationList( "70-1,70-2,64-3,0-4" );
+		int [] values = new PackedLocationList( wide ).toPackedArray();
+		assertEquals( "Wide", ranker.getSum( wide ), ranker.getSum( values, values.length ));
+		try {
+			block.add( wide );
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+		}
+		assertEquals( "Unchanged size", count, block.size() );
+	}
+
+	@Test
+	public void testMemo() {
+		ChordRank ranker = new ChordRank( 0, 5, 2, 3 );
+		assertEquals( "Off by default", 0, ranker.getMemoSize() );
+		ranker.setMemoSize( 3000 );
+		assertEquals( "Power of two", 4096, ranker.getMemoSize() );
+
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		List<LocationList> variations = standard.getVariations( new NoteList( Note.GuitarA, "1-3-5-7" ), 0, 12, Fretboard.OCTAVES );
+		Permutations permutations = new Permutations( variations );
+		ChordRank plain = new ChordRank( 0, 5, 2, 3 );
+		int count = 0;
+		for ( LocationList permutation : permutations ) {
+			assertEquals( "Sum " + permutation, plain.getSum( permutation ), ranker.getSum( permutation ));
+			assertArrayEquals( "Composite " + permutation, plain.compositeScore( permutation ), ranker.compositeScore( permutation ));
+			count++;
+		}
+		assertEquals( "Lookups", 2 * count, ranker.getMemoHits() + ranker.getMemoMisses() );
+		// Each composite score follows the sum of the same permutation, and permutations share signatures.
+		assertTrue( "Hit rate " + ranker.getMemoHitRate(), ranker.getMemoHitRate() > 0.6 );
+
+		// Returned scores are copies.
+		LocationList first = new LocationList( "0-1,1-3,3-2" );
+		ranker.compositeScore( first )[ 0 ] = -1;
+		assertArrayEquals( "Copy", plain.compositeScore( first ), ranker.compositeScore( first ));
+
+		// Setters clear the memo.
+		long clears = ranker.getMemoClears();
+		ranker.setMinFret( 2 );
+		ranker.setSameStringPenalty( 7 );
+		assertEquals( "Clears", clears + 2, ranker.getMemoClears() );
+		plain.setMinFret( 2 );
+		plain.setSameStringPenalty( 7 );
+		LocationList repeated = new LocationList( "0-1,0-3,3-2" );
+		assertArrayEquals( "After setters", plain.compositeScore( repeated ), ranker.compositeScore( repeated ));
+		assertArrayEquals( "After setters", plain.compositeScore( first ), ranker.compositeScore( first ));
+
+		// Equal signatures, equal scores.
+		assertEquals( "Moved strings", ranker.getSignature( new LocationList( "0-3,2-4" )), ranker.getSignature( new LocationList( "3-3,5-4" )));
+		assertTrue( "Skipped string", ranker.getSignature( new LocationList( "0-3,2-4" )) != ranker.getSignature( new LocationList( "0-3,1-4" )));
+		assertEquals( "Wide", ChordRank.NO_SIGNATURE, ranker.getSignature( new LocationList( "0-3,70-4" )));
+		assertEquals( "Wide scored", plain.getSum( new LocationList( "0-3,70-4" )), ranker.getSum( new LocationList( "0-3,70-4" )));
+
+		ranker.setMemoSize( 0 );
+		assertEquals( "Off", 0, ranker.getMemoSize() );
+		assertEquals( "Stats cleared", 0, ranker.getMemoHits() );
+	}
+}
@@ -0,0 +1,81 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class FretboardIndexTest {
+	@Test
+	public void testPitches() {
+		for ( String name : Fretboard.getFretboardNames() ) {
+			Fretboard fretboard = Fretboard.getInstanceFromName( name );
+			FretboardIndex index = fretboard.getIndex();
+			assertEquals( name + " strings", fretboard.getStringCount(), index.getStringCount() );
+			for ( int stringi = 0; stringi < fretboard.getStringCount(); stringi++ ) {
+				GuitarString guitarString = fretboard.getString( stringi );
+				for ( int freti = 0; freti < guitarString.getMaxFret(); freti++ ) {
+					assertEquals( name + " pitch " + stringi + "," + freti,
+						guitarString.getNote( freti ).getAbsoluteValue(), index.getPitch( stringi, freti ));
+					assertEquals( name + " packed " + stringi + "," + freti,
+						index.getPitch( stringi, freti ), index.getPitch( Location.pack( stringi, freti )));
+				}
+				assertEquals( name + " max fret", FretboardIndex.NO_PITCH, index.getPitch( stringi, guitarString.getMaxFret() ));
+				assertEquals( name + " negative fret", FretboardIndex.NO_PITCH, index.getPitch( stringi, -1 ));
+			}
+			assertEquals( name + " no string", FretboardIndex.NO_PITCH, index.getPitch( fretboard.getStringCount(), 0 ));
+		}
+	}
+
+	@Test
+	public void testLocations() {
+		for ( String name : Fretboard.getFretboardNames() ) {
+			Fretboard fretboard = Fretboard.getInstanceFromName( name );
+			FretboardIndex index = fretboard.getIndex();
+			for ( int pitch = index.getLowestPitch() - 2; pitch <= index.getHighestPitch() + 2; pitch++ ) {
+				// Same as walking each string for the note.
+				Note note = new Note( pitch );
+				LocationList expected = new LocationList();
+				for ( int stringi = 0; stringi < fretboard.getStringCount(); stringi++ ) {
+					int freti = fretboard.getString( stringi ).getFret( note );
+					if ( freti >= 0 )
+						expected.add( new Location( stringi, freti ));
+				}
+				assertEquals( name + " locations " + note, expected, fretboard.getLocations( note ));
+				assertEquals( name + " count " + note, expected.size(), index.getLocationCount( pitch ));
+				for ( int i = 0; i < expected.size(); i++ )
+					assertEquals( name + " location " + note, expected.get( i ).pack(), index.getLocation( pitch, i ));
+			}
+		}
+	}
+
+	@Test
+	public void testReset() {
+		Fretboard fretboard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		FretboardIndex index = fretboard.getIndex();
+		assertSame( "Cached", index, fretboard.getIndex() );
+
+		fretboard.remove( 0 );
+		assertNotSame( "Changed strings", index, fretboard.getIndex() );
+		assertEquals( "Removed string", fretboard.getStringCount(), fretboard.getIndex().getStringCount() );
+
+		index = fretboard.getIndex();
+		fretboard.resetIndex();
+		assertNotSame( "Reset", index, fretboard.getIndex() );
+	}
+
+	@Test
+	public void testFormula() {
+		Fretboard fretboard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		LocationList locations = new LocationList( new Location( 0, 1 ), new Location( 1, 3 ), new Location( 2, 3 ), new Location( 3, 2 ));
+		assertEquals( "Formula", "R-5-R-3", locations.getFormula( fretboard, Note.F ));
+		assertEquals( "Quality", "b3", Note.getQualityName( Note.plus( Note.F, 3 + 24 ), Note.F ));
+		assertEquals( "Quality", Note.getQualityName( Note.Ds, Note.B ), Note.getQualityName( Note.Ds.getAbsoluteValue() - 36, Note.B.getValue() ));
+	}
+}
@@ -9,7 +9,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 
 import static frets.main.Display.Orientation;
@@ -72,6 +75,41 @@ public class FretboardTest {
 		assertTrue("Empty", test.isEmpty());
 	}
 
+	@Test
+	public void testPrecomputedAndFrozen() {
+		Fretboard test = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		assertEquals("Low pitch", Note.GuitarLowE.getAbsoluteValue(), test.getLowPitch());
+		assertEquals("High pitch", test.getHighString().getHighNote().getAbsoluteValue(), test.getHighPitch());
+		for (int stringi = 0; stringi < test.getStringCount(); stringi++) {
+			GuitarString guitarString = test.getString(stringi);
+			assertEquals("Open pitch", guitarString.getOpenNote().getAbsoluteValue(), test.getOpenPitch(stringi));
+			assertEquals("Max fret", guitarString.getMaxFret(), test.getMaxFret(stringi));
+			assertEquals("Octave fret", guitarString.getOctaveFret(), test.getOctaveFret(stringi));
+		}
+
+		// Snapshots are not changed by later changes.
+		List<GuitarString> before = test.getStrings();
+		GuitarString capo = new GuitarString(Note.plus(Note.GuitarLowE, -2), 12, 30);
+		test.add(0, capo);
+		assertEquals("Snapshot", 6, before.size());
+		assertEquals("Low string", capo, test.getLowString());
+		assertEquals("Low pitch changed", Note.GuitarLowE.getAbsoluteValue() - 2, test.getLowPitch());
+		assertEquals("Max fret changed", 30, test.getMaxFret());
+		try {
+			test.getStrings().remove(0);
+			assertTrue("Expected UnsupportedOperationException", false);
+		} catch (UnsupportedOperationException e) {
+		}
+
+		assertTrue("Frozen", test.freeze().isFrozen());
+		try {
+			test.remove(0);
+			assertTrue("Expected UnsupportedOperationException", false);
+		} catch (UnsupportedOperationException e) {
+		}
+		assertEquals("Unchanged", 7, test.getStringCount());
+	}
+
 	/**
 	 * Note that the variation LocationList of any List position can be null or empty.
 	 * This often happen when one Fretboard with high and low notes gets moved to a smaller fretboard.
@@ -319,6 +357,16 @@ public class FretboardTest {
 
 		long[] doubleit = Fretboard.getPermutationValues("15/64 (123/456) 10/20 (345/678)");
 		assertNull("Doubleit", doubleit);
+
+		// Radices over 9 are delimited.
+		List<LocationList> variations = new LinkedList<LocationList>();
+		variations.add(new LocationList("0-0,0-1,0-2,0-3,0-4"));
+		variations.add(new LocationList("1-0,1-1,1-2,1-3"));
+		variations.add(new LocationList("2-0,2-1,2-2,2-3,2-4,2-5,2-6,2-7,2-8,2-9,2-10"));
+		String delimited = Fretboard.getPermutationString(variations, 21);
+		assertEquals("Delimited", "21/220 (1.0.1/11.4.5)", delimited);
+		assertArrayEquals("Delimited values", new long[] { 21, 220, 3, 1, 11, 0, 4, 1, 5 }, Fretboard.getPermutationValues(delimited));
+		assertNull("Mismatch", Fretboard.getPermutationValues("1/220 (1.0.1/11.4)"));
 	}
 
 	@Test
@@ -340,6 +388,82 @@ public class FretboardTest {
 		assertEquals("NoteList octave variation count", 12, numVariations);
 	}
 
+	@Test
+	public void testTopK() {
+		NoteList d7 = new NoteList( Note.GuitarD, "R-3-5-b7" );
+		List<LocationList> variations = standard.getOctaveVariations( d7 );
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+		List<LocationList> sorted = Fretboard.explodeAndSort( variations, ranker );
+
+		int k = 20;
+		List<LocationList> top = Fretboard.topK( variations, ranker, k );
+		assertEquals( "Top count", k, top.size() );
+		for ( int i = 0; i < k; i++ ) {
+			assertEquals( "Top " + i, sorted.get( i ), top.get( i ) );
+		}
+
+		List<RankedLocationList> ranked = Fretboard.topKRanked( variations, ranker, k );
+		for ( int i = 0; i < k; i++ ) {
+			RankedLocationList entry = ranked.get( i );
+			assertEquals( "Ranked score " + i, ranker.getSum( sorted.get( i ) ), entry.getScore() );
+			assertEquals( "Ranked permutation " + i, Fretboard.getPermutationNumber( variations, entry.getLocations() ), entry.getPermutation() );
+			if ( i > 0 )
+				assertTrue( "Ranked order " + i, ranked.get( i - 1 ).compareTo( entry ) < 0 );
+		}
+
+		// Asking for more than the permutation count returns them all.
+		long count = Fretboard.getPermutationCount( variations );
+		assertEquals( "All", count, Fretboard.topK( variations, ranker, Integer.MAX_VALUE ).size() );
+		assertEquals( "None", 0, Fretboard.topK( variations, ranker, 0 ).size() );
+		assertEquals( "Null variations", 0, Fretboard.topK( null, ranker, k ).size() );
+	}
+
+	@Test
+	public void testExplodeAndRank() {
+		NoteList d7 = new NoteList( Note.GuitarD, "R-3-5-b7" );
+		List<LocationList> variations = standard.getOctaveVariations( d7 );
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+
+		// Same order as a stable comparator sort.
+		List<LocationList> expected = new LinkedList<LocationList>();
+		for ( LocationList permutation : Fretboard.getPermutations( variations ) )
+			expected.add( permutation );
+		Collections.sort( expected, ranker );
+
+		List<RankedLocationList> ranked = Fretboard.explodeAndRank( variations, ranker );
+		assertEquals( "Count", expected.size(), ranked.size() );
+		Iterator<LocationList> it = expected.iterator();
+		for ( RankedLocationList entry : ranked ) {
+			LocationList locations = it.next();
+			assertEquals( "Ranked " + entry, locations, entry.getLocations() );
+			assertArrayEquals( "Scores " + entry, ranker.compositeScore( locations ), entry.getScores() );
+			assertEquals( "Score string " + entry, ranker.getScoreString( locations ), ranker.getScoreString( entry ));
+			assertEquals( "Permutation " + entry, Fretboard.getPermutationNumber( variations, locations ), entry.getPermutation() );
+		}
+		assertEquals( "Sorted", expected, Fretboard.explodeAndSort( variations, ranker ));
+
+		// Natural order without a ranker.
+		List<LocationList> natural = new LinkedList<LocationList>();
+		for ( LocationList permutation : Fretboard.getPermutations( variations ) )
+			natural.add( permutation );
+		Collections.sort( natural );
+		assertEquals( "Natural", natural, Fretboard.explodeAndSort( variations, null ));
+
+		// A subclass comparator is respected, here worst first.
+		ChordRank reverse = new ChordRank( 0, 12, 5, 10 ) {
+			@Override
+			public int compare( final LocationList o1, final LocationList o2 ) {
+				return super.compare( o2, o1 );
+			}
+		};
+		List<LocationList> reversed = new LinkedList<LocationList>();
+		for ( LocationList permutation : Fretboard.getPermutations( variations ) )
+			reversed.add( permutation );
+		Collections.sort( reversed, reverse );
+		assertEquals( "Subclass", reversed, Fretboard.explodeAndSort( variations, reverse ));
+		assertTrue( "Worst first", ranker.getSum( reversed.get( 0 )) > ranker.getSum( expected.get( 0 )));
+	}
+
 	@Test
 	/** How to specify note/enharmonic variations that appear on a fretboard. */
 	public void testToStrings() {
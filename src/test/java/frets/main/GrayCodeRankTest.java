@@ -0,0 +1,84 @@
+package frets.main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class GrayCodeRankTest {
+	@Test
+	public void testSameAsExplodeAndRank() {
+		String [] formulas = { "R-3-5", "R-3-5-b7", "R-b3-5-b7-9" };
+		ChordRank [] rankers = { new ChordRank(), new ChordRank( 0, 12, 5, 10 ), new ChordRank( 3, 8, 0, 2 ) };
+		for ( String name : new String [] { Fretboard.STANDARD, Fretboard.OPEN_G } ) {
+			Fretboard fretboard = Fretboard.getInstanceFromName( name );
+			for ( String formula : formulas ) {
+				List<LocationList> variations = fretboard.getOctaveVariations( new NoteList( Note.GuitarD, formula ));
+				for ( ChordRank ranker : rankers ) {
+					String test = name + " " + formula + " " + ranker.getScoreString( new LocationList() );
+					assertRanked( test, Fretboard.explodeAndRank( variations, ranker ),
+						Fretboard.explodeAndRank( variations, ranker, Fretboard.GRAYCODE ));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFixedDigits() {
+		// Single location and empty variations do not move in the Gray code.
+		List<LocationList> variations = new LinkedList<LocationList>();
+		variations.add( new LocationList( new Location( 0, 3 )));
+		variations.add( new LocationList( new Location( 1, 2 ), new Location( 3, 7 ), new Location( 1, 9 )));
+		variations.add( new LocationList() );
+		variations.add( new LocationList( new Location( 2, 0 )));
+		variations.add( new LocationList( new Location( 2, 4 ), new Location( 4, 1 )));
+		ChordRank ranker = new ChordRank( 1, 5, 3, 7 );
+		GrayCodeRank gray = new GrayCodeRank( variations, ranker );
+		assertTrue( "Incremental", gray.isIncremental() );
+		assertRanked( "Fixed", Fretboard.explodeAndRank( variations, ranker ), gray.rank() );
+		assertRanked( "Again", Fretboard.explodeAndRank( variations, ranker ), gray.rank() );
+
+		variations.clear();
+		variations.add( new LocationList( new Location( 5, 5 )));
+		assertRanked( "One", Fretboard.explodeAndRank( variations, ranker ), new GrayCodeRank( variations, ranker ).rank() );
+		assertEquals( "None", 0, new GrayCodeRank( null, ranker ).rank().size() );
+	}
+
+	@Test
+	public void testNotIncremental() {
+		ChordRank ranker = new ChordRank() {
+			@Override
+			public int [] compositeScore( final LocationList list ) {
+				int [] scores = super.compositeScore( list );
+				scores[ 0 ] = -scores[ 0 ];
+				return scores;
+			}
+		};
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		List<LocationList> variations = standard.getOctaveVariations( new NoteList( Note.GuitarG, "R-3-5" ));
+		GrayCodeRank gray = new GrayCodeRank( variations, ranker );
+		assertFalse( "Incremental", gray.isIncremental() );
+		assertRanked( "Subclass", Fretboard.explodeAndRank( variations, ranker ), gray.rank() );
+	}
+
+	protected static void assertRanked( String test, List<RankedLocationList> expected, List<RankedLocationList> actual ) {
+		assertEquals( test + " count", expected.size(), actual.size() );
+		Iterator<RankedLocationList> it = actual.iterator();
+		for ( RankedLocationList entry : expected ) {
+			RankedLocationList gray = it.next();
+			assertEquals( test + " ranked", entry, gray );
+			assertArrayEquals( test + " scores " + entry, entry.getScores(), gray.getScores() );
+		}
+	}
+}
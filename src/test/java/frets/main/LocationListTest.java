@@ -13,8 +13,10 @@ import frets.main.Display.Orientation;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.TreeSet;
 
 /**
  * Unit tests to validate this class.  
@@ -633,4 +635,90 @@ public class LocationListTest
 		assertEquals("LocationList sort", expected, locations );        	
     }
 
+
+    @Test
+    public void testShape() {
+		LocationList locations = LocationList.parseString( "1-5,3-7,3-9,5-2" );
+		assertEquals( "Min fret", 2, locations.minFret() );
+		assertEquals( "Max fret", 9, locations.maxFret() );
+		assertEquals( "Min string", 1, locations.minString() );
+		assertEquals( "Max string", 5, locations.maxString() );
+		assertEquals( "String mask", 0x2AL, locations.getStringMask() );
+		assertEquals( "String count", 3, locations.getStringCount() );
+		assertEquals( "Duplicates", 1, locations.getDuplicateStringCount() );
+		assertEquals( "Skipped", 2, locations.getSkippedStringCount() );
+		assertFalse( "Unique", locations.uniqueStrings() );
+
+		// One pass gives the whole shape, and the shape does not follow later changes.
+		LocationList.Shape shape = locations.getShape();
+		assertEquals( "Shape min fret", 2, shape.minFret() );
+		assertEquals( "Shape max fret", 9, shape.maxFret() );
+		assertEquals( "Shape min string", 1, shape.minString() );
+		assertEquals( "Shape max string", 5, shape.maxString() );
+		assertEquals( "Shape mask", 0x2AL, shape.getStringMask() );
+		assertEquals( "Shape duplicates", 1, shape.getDuplicateStringCount() );
+		assertEquals( "Shape skipped", 2, shape.getSkippedStringCount() );
+		assertTrue( "Shape masked", shape.isMasked() );
+		LocationList wide = LocationList.parseString( "1-5,70-7,70-9" );
+		assertFalse( "Wide masked", wide.getShape().isMasked() );
+		assertEquals( "Wide strings", 2, wide.getStringCount() );
+		assertEquals( "Wide skipped", 68, wide.getSkippedStringCount() );
+
+		// Kept up to date on change.
+		locations.add( new Location( 2, 12 ));
+		assertEquals( "Add max fret", 12, locations.maxFret() );
+		assertEquals( "Add skipped", 1, locations.getSkippedStringCount() );
+		assertEquals( "Shape unchanged", 9, shape.maxFret() );
+		locations.remove( new Location( 5, 2 ));
+		assertEquals( "Remove min fret", 5, locations.minFret() );
+		assertEquals( "Remove max string", 3, locations.maxString() );
+		locations.set( 2, new Location( 0, 0 ));
+		assertEquals( "Set min string", 0, locations.minString() );
+		assertTrue( "Set unique", locations.uniqueStrings() );
+		Iterator<Location> it = locations.iterator();
+		it.next();
+		it.remove();
+		assertEquals( "Iterator remove", 0x0DL, locations.getStringMask() );
+		locations.transposeFrets( 2 );
+		assertEquals( "Transpose", 14, locations.maxFret() );
+		locations.clear();
+		assertEquals( "Clear", 0L, locations.getStringMask() );
+		assertEquals( "Clear skipped", 0, locations.getSkippedStringCount() );
+
+		// Same as a pass over the locations.
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		List<LocationList> variations = standard.getOctaveVariations( new NoteList( Note.GuitarG, Note.GuitarB, Note.GuitarHighE ));
+		for ( LocationList variation : Fretboard.getPermutations( variations, true )) {
+			TreeSet<Integer> strings = new TreeSet<Integer>();
+			int minFret = Integer.MAX_VALUE;
+			for ( Location location : variation ) {
+				strings.add( location.getString() );
+				minFret = Math.min( minFret, location.getFret() );
+			}
+			assertEquals( "String count " + variation, strings.size(), variation.getStringCount() );
+			assertEquals( "Min fret " + variation, minFret, variation.minFret() );
+			assertEquals( "Skipped " + variation, strings.last() - strings.first() + 1 - strings.size(), variation.getSkippedStringCount() );
+		}
+    }
+
+    @Test
+    public void testShapeSharedLocation() {
+		// Permutations share the Location objects of the variations.
+		List<LocationList> variations = Arrays.asList( LocationList.parseString( "0-3" ), LocationList.parseString( "1-5,1-7" ));
+		Permutations permutations = Fretboard.getPermutations( variations );
+		LocationList first = permutations.get( 0 );
+		LocationList second = permutations.get( 1 );
+		assertEquals( "Min fret", 3, second.minFret() );
+		assertEquals( "Fret span", 4, second.fretSpan() );
+		int sum = new ChordRank().getSum( second );
+
+		first.get( 1 ).setFret( 9 );
+		assertEquals( "Shared", "1-7,0-9", second.toString() );
+		assertEquals( "Min fret", 7, second.minFret() );
+		assertEquals( "Max fret", 9, second.maxFret() );
+		assertEquals( "Fret span", 2, second.fretSpan() );
+		assertEquals( "Sum", new ChordRank().getSum( new LocationList( second )), new ChordRank().getSum( second ));
+		assertTrue( "Sum changed", sum != new ChordRank().getSum( second ));
+    }
+
 }
\ No newline at end of file
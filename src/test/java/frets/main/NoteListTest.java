@@ -82,6 +82,43 @@ public class NoteListTest {
 		assertTrue("IsEmpty", b.isEmpty());
 	}
 
+	@Test
+	public void testAbsoluteValues() {
+		NoteList a = new NoteList(Note.GuitarLowE, Note.GuitarA, Note.GuitarD);
+		assertTrue("Values", Arrays.equals(new int[] { 31, 36, 41 }, a.toAbsoluteValues()));
+		assertEquals("Value", 36, a.getAbsoluteValue(1));
+
+		// Notes from the list are copies.
+		a.get(0).plus(1);
+		assertEquals("Get copy", Note.GuitarLowE, a.get(0));
+		Note added = new Note(Note.GuitarG);
+		a.add(added);
+		added.plus(1);
+		assertEquals("Add copy", Note.GuitarG, a.get(3));
+
+		NoteList b = new NoteList(a);
+		b.updateRelative(12);
+		assertEquals("Copy independent", Note.GuitarLowE, a.get(0));
+		assertEquals("Update", 43, b.getAbsoluteValue(0));
+
+		// Growth, views and nulls.
+		for (int i = 0; i < 20; i++)
+			a.add(1, Note.C);
+		assertEquals("Grown", 24, a.size());
+		assertEquals("Last", Note.GuitarG, a.get(23));
+		a.subList(1, 21).clear();
+		assertEquals("Sub list clear", Arrays.asList(Note.GuitarLowE, Note.GuitarA, Note.GuitarD, Note.GuitarG), a);
+		a.set(1, null);
+		assertEquals("Null", null, a.get(1));
+		assertEquals("Index of null", 1, a.indexOf(null));
+		assertEquals("Index of", 3, a.lastIndexOf(Note.GuitarG));
+		assertFalse("Not a note", a.contains("E2"));
+		int count = 0;
+		for (Note note : a)
+			count++;
+		assertEquals("Iterator", 4, count);
+	}
+
 	@Test
 	public void testSorting() {
 		NoteList bMajor = new NoteList(new Note[] { Note.plus(Note.GuitarB, Interval.seventh),
@@ -0,0 +1,96 @@
+package frets.main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class PackedLocationListTest {
+	@Test
+	public void testListApi() {
+		LocationList expected = new LocationList( "0-3,1-5,2-0,5-12" );
+		PackedLocationList packed = new PackedLocationList( 1 );
+		for ( Location location : expected )
+			packed.add( location );
+		assertEquals( "Size", expected.size(), packed.size() );
+		assertEquals( "Equals", expected, packed );
+		assertEquals( "Equals reverse", packed, expected );
+		assertEquals( "Hash", expected.hashCode(), packed.hashCode() );
+		assertEquals( "String", expected.toString(), packed.toString() );
+		assertEquals( "Compare", 0, expected.compareTo( packed ));
+
+		assertTrue( "Contains", packed.contains( new Location( 2, 0 )));
+		assertEquals( "Index", 3, packed.indexOf( new Location( 5, 12 )));
+		assertEquals( "Remove", new Location( 1, 5 ), packed.remove( 1 ));
+		assertFalse( "Removed", packed.contains( new Location( 1, 5 )));
+		packed.add( 1, new Location( 1, 7 ));
+		assertEquals( "Insert", new Location( 1, 7 ), packed.get( 1 ));
+		assertEquals( "Set", new Location( 1, 7 ), packed.set( 1, new Location( 4, 4 )));
+		assertEquals( "After set", "0-3,4-4,2-0,5-12", packed.toString() );
+
+		ListIterator<Location> it = packed.listIterator();
+		while ( it.hasNext() ) {
+			if ( 0 == it.next().getFret() ) it.remove();
+		}
+		assertEquals( "Iterator remove", "0-3,4-4,5-12", packed.toString() );
+		List<Location> sub = packed.subList( 1, 3 );
+		assertEquals( "Sub list", new Location( 4, 4 ), sub.get( 0 ));
+
+		packed.sort();
+		assertEquals( "Sort", "0-3,4-4,5-12", packed.toString() );
+		packed.clear();
+		assertTrue( "Clear", packed.isEmpty() );
+	}
+
+	@Test
+	public void testPacked() {
+		PackedLocationList packed = new PackedLocationList( new Location( 0, 3 ), new Location( 2, GuitarString.NOFRET ));
+		assertEquals( "String", 2, packed.getString( 1 ));
+		assertEquals( "No fret", GuitarString.NOFRET, packed.getFret( 1 ));
+		assertEquals( "Packed", new Location( 0, 3 ).pack(), packed.getPacked( 0 ));
+		packed.addPacked( Location.pack( 3, 7 ));
+		assertEquals( "Add packed", new Location( 3, 7 ), packed.get( 2 ));
+		packed.setPacked( 0, Location.pack( 1, 1 ));
+		assertArrayEquals( "Array", new int [] { Location.pack( 1, 1 ), Location.pack( 2, -1 ), Location.pack( 3, 7 ) }, packed.toPackedArray() );
+
+		// Returned locations are copies.
+		packed.get( 0 ).setFret( 9 );
+		assertEquals( "Copy", 1, packed.getFret( 0 ));
+		try {
+			packed.getPacked( 3 );
+			assertTrue( "Expected IndexOutOfBoundsException", false );
+		} catch ( IndexOutOfBoundsException e ) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTranspose() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		LocationList expected = new LocationList( "0-3,1-5,2-2" );
+		PackedLocationList packed = new PackedLocationList( expected );
+		expected.transposeFrets( standard, 7 );
+		packed.transposeFrets( standard, 7 );
+		assertEquals( "Frets", expected, packed );
+		expected.transposeStrings( standard, 3 );
+		packed.transposeStrings( standard, 3 );
+		assertEquals( "Strings", expected, packed );
+		assertEquals( "Min fret", expected.minFret(), packed.minFret() );
+		assertEquals( "Span", expected.fretSpan(), packed.fretSpan() );
+
+		Iterator<Location> it = packed.iterator();
+		for ( Location location : expected )
+			assertEquals( "Iterator", location, it.next() );
+	}
+}
@@ -0,0 +1,106 @@
+package frets.main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class PermutationIdTest {
+	@Test
+	public void testSameAsPermutationNumber() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		List<LocationList> variations = standard.getOctaveVariations( new NoteList( Note.GuitarG, "R-3-5" ));
+		long count = Fretboard.getPermutationCount( variations );
+		assertEquals( "Count", BigInteger.valueOf( count ), Fretboard.getPermutationCountExact( variations ));
+
+		PermutationId id = PermutationId.getInstance( variations, 0 );
+		for ( long permi = 0; permi < count; permi++ ) {
+			LocationList locations = Fretboard.getPermutation( variations, permi );
+			assertEquals( "Cursor " + permi, PermutationId.getInstance( variations, permi ), id );
+			assertEquals( "Number " + permi, permi, id.getNumber() );
+			assertEquals( "Locations " + permi, locations, id.getLocations( variations ));
+			assertEquals( "Inverse " + permi, id, PermutationId.getInstance( variations, locations ));
+			assertEquals( "Parse " + permi, id, PermutationId.parse( id.toString() ));
+			id = id.next();
+		}
+		assertNull( "Last", id );
+	}
+
+	@Test
+	public void testOverflow() {
+		// 20 notes of 10 locations each, 10^20 permutations.
+		List<LocationList> variations = new LinkedList<LocationList>();
+		for ( int notei = 0; notei < 20; notei++ ) {
+			LocationList enharmonics = new LocationList();
+			for ( int freti = 0; freti < 10; freti++ )
+				enharmonics.add( new Location( notei % 6, freti ));
+			variations.add( enharmonics );
+		}
+		BigInteger count = BigInteger.TEN.pow( 20 );
+		assertEquals( "Exact count", count, Fretboard.getPermutationCountExact( variations ));
+		try {
+			Fretboard.getPermutationCount( variations );
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+			// expected
+		}
+
+		BigInteger last = count.subtract( BigInteger.ONE );
+		PermutationId id = PermutationId.getInstance( variations, last );
+		assertEquals( "Exact number", last, id.getNumberExact() );
+		assertFalse( "Long", id.isLong() );
+		assertEquals( "String", "9.9.9.9.9.9.9.9.9.9.9.9.9.9.9.9.9.9.9.9/10.10.10.10.10.10.10.10.10.10.10.10.10.10.10.10.10.10.10.10", id.toString() );
+		try {
+			id.getNumber();
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+			// expected
+		}
+		assertNull( "Next", id.next() );
+
+		PermutationId small = PermutationId.getInstance( variations, Long.MAX_VALUE );
+		assertTrue( "Long", small.isLong() );
+		assertEquals( "Long number", Long.MAX_VALUE, small.getNumber() );
+		assertEquals( "Next number", BigInteger.valueOf( Long.MAX_VALUE ).add( BigInteger.ONE ), small.next().getNumberExact() );
+		assertEquals( "Locations", small, PermutationId.getInstance( variations, small.getLocations( variations )));
+	}
+
+	@Test
+	public void testParse() {
+		PermutationId id = PermutationId.parse( "0.3.12/2.5.14" );
+		assertEquals( "Digits", 3, id.getDigitCount() );
+		assertEquals( "Least significant digit", 12, id.getDigit( 0 ));
+		assertEquals( "Least significant radix", 14, id.getRadix( 0 ));
+		assertEquals( "Number", 3 * 14 + 12, id.getNumber() );
+		assertArrayEquals( "Values", new int [] { 3, 2, 1 }, PermutationId.parseValues( "1.2.3" ));
+		assertEquals( "Compare", -1, Integer.signum( id.compareTo( PermutationId.parse( "1.0.0/2.5.14" ))));
+		// Same digits, other radices, consistent with equals.
+		PermutationId other = PermutationId.parse( "0.3.12/2.6.14" );
+		assertFalse( "Other radices", id.equals( other ));
+		assertEquals( "Compare radices", -1, Integer.signum( id.compareTo( other )));
+		assertEquals( "Compare reverse", 1, Integer.signum( other.compareTo( id )));
+		assertEquals( "Compare same", 0, id.compareTo( PermutationId.parse( "0.3.12/2.5.14" )));
+
+		String [] bad = { "", "1.2", "1/2/3", "1.x/2.3", "3/2", "1.2/3" };
+		for ( String badString : bad ) {
+			try {
+				PermutationId.parse( badString );
+				assertTrue( "Expected IllegalArgumentException for " + badString, false );
+			} catch ( IllegalArgumentException e ) {
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class PermutationsTest {
+	protected Fretboard standard;
+
+	@Before
+	public void setup() {
+		standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+	}
+
+	@Test
+	public void testSameAsGetPermutation() {
+		NoteList noteSet = new NoteList( Note.GuitarG,
+			Note.plus( Note.GuitarG, Interval.fourth ), Note.plus( Note.GuitarG, Interval.fifth ));
+		List<LocationList> variations = standard.getOctaveVariations( noteSet );
+		long count = Fretboard.getPermutationCount( variations );
+
+		Permutations permutations = Fretboard.getPermutations( variations );
+		assertEquals( "Count", count, permutations.getCount() );
+		Permutations.PermutationIterator it = permutations.iterator();
+		long permi = 0;
+		while ( it.hasNext() ) {
+			LocationList locations = it.next();
+			assertEquals( "Permutation number", permi, it.getPermutationNumber() );
+			assertEquals( "Permutation " + permi, Fretboard.getPermutation( variations, permi ), locations );
+			assertEquals( "Get " + permi, locations, permutations.get( permi ));
+			permi++;
+		}
+		assertEquals( "Iterated count", count, permi );
+	}
+
+	@Test
+	public void testReuse() {
+		NoteList noteSet = new NoteList( Note.GuitarG, Note.plus( Note.GuitarG, Interval.fourth ));
+		List<LocationList> variations = standard.getEnharmonicVariations( noteSet );
+
+		LocationList first = null;
+		long permi = 0;
+		for ( LocationList locations : Fretboard.getPermutations( variations, true )) {
+			if ( null == first ) first = locations;
+			assertSame( "Scratch " + permi, first, locations );
+			assertEquals( "Permutation " + permi, Fretboard.getPermutation( variations, permi ), locations );
+			permi++;
+		}
+		assertEquals( "Iterated count", Fretboard.getPermutationCount( variations ), permi );
+	}
+
+	@Test
+	public void testEmptyVariations() {
+		assertFalse( "Null", new Permutations( null ).iterator().hasNext() );
+		assertFalse( "Empty", new Permutations( new LinkedList<LocationList>() ).iterator().hasNext() );
+
+		// Empty and null digits are skipped, as in getPermutation.
+		List<LocationList> variations = new LinkedList<LocationList>();
+		variations.add( new LocationList( new Location( 0, 3 ), new Location( 1, 8 )));
+		variations.add( new LocationList() );
+		variations.add( null );
+		variations.add( new LocationList( new Location( 2, 5 )));
+		long permi = 0;
+		for ( LocationList locations : Fretboard.getPermutations( variations )) {
+			assertEquals( "Permutation " + permi, Fretboard.getPermutation( variations, permi ), locations );
+			permi++;
+		}
+		assertEquals( "Iterated count", 2, permi );
+	}
+
+	@Test
+	public void testRanges() {
+		NoteList noteSet = new NoteList( Note.GuitarG, Note.plus( Note.GuitarG, Interval.fourth ), Note.GuitarB );
+		List<LocationList> variations = standard.getOctaveVariations( noteSet );
+		Permutations permutations = new Permutations( variations, true );
+		long count = permutations.getCount();
+		long [] starts = { 0, 1, count / 3, count - 1 };
+		for ( long from : starts ) {
+			Permutations.PermutationIterator it = permutations.iterator( from, count );
+			long permi = from;
+			while ( it.hasNext() ) {
+				assertEquals( "Range " + from + " permutation " + permi, Fretboard.getPermutation( variations, permi ), it.next() );
+				assertEquals( "Range " + from + " number", permi, it.getPermutationNumber() );
+				permi++;
+			}
+			assertEquals( "Range " + from + " end", count, permi );
+		}
+		assertFalse( "Empty range", permutations.iterator( 5, 5 ).hasNext() );
+	}
+
+	@Test
+	public void testEnd() {
+		List<LocationList> variations = new LinkedList<LocationList>();
+		variations.add( new LocationList( new Location( 0, 3 )));
+		Permutations.PermutationIterator it = new Permutations( variations ).iterator();
+		assertEquals( "Before first", -1, it.getPermutationNumber() );
+		assertTrue( "Has first", it.hasNext() );
+		it.next();
+		assertFalse( "Has second", it.hasNext() );
+		try {
+			it.next();
+			assertTrue( "Expected NoSuchElementException", false );
+		} catch ( NoSuchElementException e ) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package frets.main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class PitchClassSetTest {
+	@Test
+	public void testConversions() {
+		PitchClassSet major = PitchClassSet.fromFormula( "1-3-5" );
+		assertEquals( "Bits", 0x091, major.getBits() );
+		assertSame( "Flyweight", major, PitchClassSet.valueOf( 0x091 ));
+		assertSame( "Of", major, PitchClassSet.of( 0, 16, 31 ));
+		assertSame( "Intervals", major, PitchClassSet.fromIntervals( Interval.root, Interval.majorThird, Interval.perfectFifth ));
+		assertSame( "Interval names", major, PitchClassSet.fromFormula( "R M3 p5" ));
+		assertArrayEquals( "To intervals", new Interval [] { Interval.r, Interval.third, Interval.fifth }, major.toIntervals() );
+		assertEquals( "To formula", "1-3-5", major.toFormula() );
+		assertEquals( "String", "{0,4,7}", major.toString() );
+
+		// Every set reads back from its formula.
+		for ( int bits = 0; bits < PitchClassSet.SET_COUNT; bits++ ) {
+			PitchClassSet set = PitchClassSet.valueOf( bits );
+			if ( !set.isEmpty() )
+				assertSame( "Formula " + set, set, PitchClassSet.fromFormula( set.toFormula() ));
+		}
+
+		// Notes count from A, so C major is C=3, E=7, G=10.
+		NoteList cMajor = new NoteList( Note.C, "1-3-5" );
+		assertEquals( "Notes", PitchClassSet.of( 3, 7, 10 ), cMajor.getPitchClassSet() );
+		assertEquals( "Transposed formula", major.transpose( Note.C.getValue() ), cMajor.getPitchClassSet() );
+		assertEquals( "To notes", cMajor, major.toNoteList( Note.C ));
+
+		assertEquals( "Extended", 0x095, PitchClassSet.fromFormula( "1-3-5-9" ).getBits() );
+		assertEquals( "Flat nine", 13, PitchClassSet.getSemitones( "b9" ));
+		assertEquals( "Double flat", 9, PitchClassSet.getSemitones( "bb7" ));
+		assertEquals( "Named", 3, PitchClassSet.getSemitones( "m3" ));
+		assertEquals( "Unknown", PitchClassSet.NO_INTERVAL, PitchClassSet.getSemitones( "x7" ));
+		try {
+			PitchClassSet.fromFormula( "1-x7" );
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+		}
+	}
+
+	@Test
+	public void testOperations() {
+		PitchClassSet major = PitchClassSet.fromFormula( "1-3-5" );
+		PitchClassSet maj7 = PitchClassSet.fromFormula( "1-3-5-7" );
+		assertEquals( "Rotate", 0x910, PitchClassSet.rotate( 0x091, 4 ));
+		assertEquals( "Rotate wraps", 0x424, PitchClassSet.rotate( 0x091, 10 ));
+		assertEquals( "Rotate down", 0x424, PitchClassSet.rotate( 0x091, -2 ));
+		assertSame( "Transpose all", major, major.transpose( 12 ));
+		assertTrue( "Subset", major.isSubsetOf( maj7 ));
+		assertTrue( "Superset", maj7.isSupersetOf( major ));
+		assertTrue( "Not subset", !maj7.isSubsetOf( major ));
+		assertEquals( "Minus", PitchClassSet.of( 11 ), maj7.minus( major ));
+		assertEquals( "Union", maj7, major.union( PitchClassSet.of( 11 )));
+		assertEquals( "Intersection", major, maj7.intersection( major ));
+		assertEquals( "Distance", 1, major.distance( maj7 ));
+		assertEquals( "Complement", 9, major.complement().size() );
+		assertEquals( "Add", maj7, major.add( 23 ));
+		assertEquals( "Remove", major, maj7.remove( -1 ));
+		assertTrue( "Contains", major.contains( 4 ) && !major.contains( 3 ));
+	}
+
+	@Test
+	public void testIntervalVectorAndForms() {
+		assertArrayEquals( "Major", new int [] { 0, 0, 1, 1, 1, 0 }, PitchClassSet.fromFormula( "1-3-5" ).getIntervalVector() );
+		assertArrayEquals( "Diminished 7th", new int [] { 0, 0, 4, 0, 0, 2 }, PitchClassSet.fromFormula( "1-b3-b5-bb7" ).getIntervalVector() );
+		assertArrayEquals( "Major scale", new int [] { 2, 5, 4, 3, 6, 1 }, PitchClassSet.fromFormula( "1-2-3-4-5-6-7" ).getIntervalVector() );
+		assertArrayEquals( "Chromatic", new int [] { 12, 12, 12, 12, 12, 6 }, PitchClassSet.CHROMATIC.getIntervalVector() );
+
+		PitchClassSet major = PitchClassSet.fromFormula( "1-3-5" );
+		PitchClassSet minor = PitchClassSet.fromFormula( "1-b3-5" );
+		for ( int semitones = 0; semitones < PitchClassSet.PITCH_CLASSES; semitones++ ) {
+			assertEquals( "Normal " + semitones, major.getNormalForm(), major.transpose( semitones ).getNormalForm() );
+			assertEquals( "Prime " + semitones, major.getPrimeForm(), minor.transpose( semitones ).getPrimeForm() );
+		}
+		assertTrue( "Major and minor differ by transposition", !major.getNormalForm().equals( minor.getNormalForm() ));
+		assertEquals( "Inversion", minor, major.invert().transpose( 7 ));
+		assertEquals( "Normal form is smallest", 0x091, major.getNormalForm().getBits() );
+	}
+}
@@ -0,0 +1,85 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class PitchTest {
+	@Test
+	public void testInterned() {
+		for ( int value = Pitch.MIN_INTERNED; value <= Pitch.MAX_INTERNED; value++ ) {
+			Pitch pitch = Pitch.valueOf( value );
+			assertSame( "Interned " + value, pitch, Pitch.valueOf( value ));
+			assertTrue( "Is interned", pitch.isInterned() );
+			Note note = new Note( value );
+			assertEquals( "Value", note.getValue(), pitch.getValue() );
+			assertEquals( "Octave", note.getOctave(), pitch.getOctave() );
+			assertEquals( "String", note.toString(), pitch.toString() );
+			assertEquals( "To note", note, pitch.toNote() );
+			assertSame( "To pitch", pitch, note.toPitch() );
+		}
+		assertSame( "Arithmetic", Pitch.GuitarA, Pitch.GuitarLowE.plus( Interval.fourth ));
+		assertSame( "Minus", Pitch.GuitarLowE, Pitch.GuitarA.minus( 5 ));
+		assertEquals( "Distance", 24, Pitch.GuitarHighE.minus( Pitch.GuitarLowE ));
+		assertSame( "Parse", Pitch.valueOf( Note.GuitarG ), Pitch.parse( "G3" ));
+
+		// Outside the table, equal by value.
+		Pitch low = Pitch.valueOf( -3 );
+		assertFalse( "Not interned", low.isInterned() );
+		assertNotSame( "New", low, Pitch.valueOf( -3 ));
+		assertEquals( "Equal", low, Pitch.valueOf( -3 ));
+		assertEquals( "Negative value", 9, low.getValue() );
+		assertEquals( "Negative octave", -1, low.getOctave() );
+		assertSame( "Back in range", Pitch.valueOf( 0 ), low.plus( 3 ));
+	}
+
+	@Test
+	public void testConstantsUnchanged() {
+		Pitch a = Pitch.GuitarA;
+		a.plus( 12 );
+		a.toNote().plus( 12 );
+		assertEquals( "Constant", Note.GuitarA.getAbsoluteValue(), Pitch.GuitarA.getAbsoluteValue() );
+	}
+
+	@Test
+	public void testSharedAcrossThreads() throws Exception {
+		final GuitarString string = new GuitarString( Note.GuitarLowE );
+		List<Callable<Integer>> tasks = new LinkedList<Callable<Integer>>();
+		for ( int t = 0; t < 8; t++ ) {
+			tasks.add( new Callable<Integer>() {
+				public Integer call() {
+					int sum = 0;
+					for ( int i = 0; i < 10000; i++ ) {
+						Pitch pitch = string.getPitch( i % string.getMaxFret() );
+						sum += string.getFret( pitch.plus( 12 ).minus( 12 ));
+					}
+					return sum;
+				}
+			});
+		}
+		int expected = 0;
+		for ( int i = 0; i < 10000; i++ )
+			expected += i % string.getMaxFret();
+		for ( Future<Integer> sum : RankTask.POOL.invokeAll( tasks ))
+			assertEquals( "Sum", expected, sum.get().intValue() );
+		assertSame( "Shared", Pitch.GuitarLowE, string.getPitch( 0 ));
+
+		NoteList notes = new NoteList( Note.GuitarLowE, Note.GuitarA );
+		assertSame( "From list", Pitch.GuitarA, notes.getPitch( 1 ));
+		assertEquals( "Count", 2, string.getCountThisString( notes ));
+	}
+}
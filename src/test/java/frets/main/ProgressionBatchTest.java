@@ -0,0 +1,73 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class ProgressionBatchTest {
+	@Test
+	public void testProgressionInAllKeys() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+		ProgressionBatch batch = new ProgressionBatch( standard, ranker, 5 );
+		// ii-V-I-vi
+		int [] degrees = { 2, 7, 0, 9 };
+		String [] formulas = { "1-b3-5-b7", "1-3-5-b7", "1-3-5-7", "1-b3-5-b7" };
+		for ( int key = 0; key < 12; key++ ) {
+			for ( int i = 0; i < degrees.length; i++ )
+				batch.add( Note.plus( Note.GuitarLowE, key + degrees[ i ] ), formulas[ i ] );
+		}
+		assertEquals( "Size", 48, batch.size() );
+		assertEquals( "Formulas parsed once", 3, batch.getFormulaCount() );
+
+		List<ProgressionBatch.Result> results = batch.rank();
+		assertEquals( "Results", 48, results.size() );
+		int index = 0;
+		for ( ProgressionBatch.Result result : results ) {
+			assertEquals( "Order", index, result.getIndex() );
+			int key = index / degrees.length;
+			int i = index % degrees.length;
+			Note root = Note.plus( Note.GuitarLowE, key + degrees[ i ] );
+			assertEquals( "Root", root, result.getChord().getRoot() );
+			List<LocationList> variations = standard.getVariations( new NoteList( root, formulas[ i ] ), 0, 13, Fretboard.OCTAVES );
+			assertEquals( "Variations " + index, variations, result.getVariations() );
+			assertEquals( "Voicings " + index, Fretboard.topKPruned( variations, ranker, 5 ), result.getLocations() );
+			assertTrue( "Timing", result.getNanos() > 0 );
+			index++;
+		}
+		assertTrue( "Batch timing", batch.getLastNanos() > 0 );
+	}
+
+	@Test
+	public void testAll() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		ChordRank ranker = new ChordRank( 0, 5, 5, 10 );
+		ProgressionBatch batch = new ProgressionBatch( standard, ranker, ProgressionBatch.ALL );
+		batch.add( Note.GuitarA, new Formula( "m", "Minor", "1-b3-5" )).add( Note.GuitarD, "1-3-5" );
+		List<ProgressionBatch.Result> results = batch.rank();
+		List<LocationList> variations = standard.getVariations( new NoteList( Note.GuitarD, "1-3-5" ), 0, 6, Fretboard.OCTAVES );
+		assertEquals( "All", Fretboard.explodeAndRank( variations, ranker ), results.get( 1 ).getVoicings() );
+		// The ranker max fret is in bounds, so D on the fifth fret of the A string is kept.
+		boolean maxFret = false;
+		for ( LocationList variation : results.get( 1 ).getVariations() )
+			maxFret |= variation.contains( new Location( 1, 5 ));
+		assertTrue( "Max fret", maxFret );
+
+		// Degrees Interval does not name still parse.
+		batch.add( Note.GuitarA, "1-3-5-b7-b9" );
+		assertEquals( "Flat nine", 3, batch.rank().size() );
+		try {
+			batch.add( Note.GuitarA, "1-x3" );
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+		}
+	}
+}
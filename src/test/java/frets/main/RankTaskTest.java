@@ -0,0 +1,65 @@
+package frets.main;
+
+import static frets.main.Fretboard.OCTAVES;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class RankTaskTest {
+	protected Fretboard standard;
+	protected Note lowF;
+
+	@Before
+	public void setup() {
+		standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		lowF = Note.plus( Note.GuitarLowE, Interval.half );
+	}
+
+	@Test
+	public void testSameAsSequential() {
+		List<LocationList> variations = standard.getVariations( new NoteList( lowF, "R-3-5-7" ), OCTAVES );
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+		long count = Fretboard.getPermutationCount( variations );
+		ForkJoinPool pool = new ForkJoinPool( 4 );
+		try {
+			for ( int k : new int [] { 1, 7, 50 } ) {
+				List<RankedLocationList> expected = Fretboard.topKRanked( variations, ranker, k );
+				// Split into many small, uneven ranges.
+				for ( long threshold : new long [] { 1, 13, count / 3, count } ) {
+					RankTask task = new RankTask( new Permutations( variations, true ), ranker, k, 0, count, threshold );
+					assertEquals( "Top " + k + ", threshold " + threshold, expected, pool.invoke( task ));
+				}
+				assertEquals( "Parallel top " + k, expected, Fretboard.topKParallel( variations, ranker, k, pool ));
+				assertEquals( "Shared pool top " + k, expected, Fretboard.topKParallel( variations, ranker, k ));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		LocationList any = new LocationList( new Location( 0, 0 ));
+		List<RankedLocationList> a = new LinkedList<RankedLocationList>();
+		a.add( new RankedLocationList( any, 4, 1 ));
+		a.add( new RankedLocationList( any, 0, 3 ));
+		List<RankedLocationList> b = new LinkedList<RankedLocationList>();
+		b.add( new RankedLocationList( any, 2, 1 ));
+		b.add( new RankedLocationList( any, 1, 3 ));
+		List<RankedLocationList> merged = RankTask.merge( a, b, 3 );
+		assertEquals( "Merged size", 3, merged.size() );
+		assertEquals( "First", 2, merged.get( 0 ).getPermutation() );
+		assertEquals( "Second", 4, merged.get( 1 ).getPermutation() );
+		assertEquals( "Third", 0, merged.get( 2 ).getPermutation() );
+	}
+}
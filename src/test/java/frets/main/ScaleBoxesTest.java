@@ -0,0 +1,166 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class ScaleBoxesTest {
+	public static final String MAJOR = "1-2-3-4-5-6-7";
+	public static final String PENTATONIC = "1-b3-4-5-b7";
+
+	@Test
+	public void testPositions() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		PitchClassSet scale = PitchClassSet.fromFormula( PENTATONIC );
+		Note root = new Note( 2, Note.Name.A.getValue() );
+		int set = scale.transpose( root.getValue() ).getBits();
+		List<LocationList> boxes = new ScaleBoxes().getPositions( standard, scale, root, 4 );
+		assertTrue( "Boxes", boxes.size() > 0 );
+
+		FretboardIndex index = standard.getIndex();
+		int lastStart = -1;
+		for ( LocationList box : boxes ) {
+			int start = Integer.MAX_VALUE;
+			int end = Integer.MIN_VALUE;
+			boolean [] strings = new boolean[ standard.getStringCount() ];
+			for ( Location location : box ) {
+				int pitch = index.getPitch( location.getString(), location.getFret() );
+				assertTrue( "In scale " + location, PitchClassSet.valueOf( set ).contains( pitch ));
+				strings[ location.getString() ] = true;
+				start = Math.min( start, location.getFret() );
+				end = Math.max( end, location.getFret() );
+			}
+			assertTrue( "Width " + box, end - start < 4 );
+			for ( boolean string : strings )
+				assertTrue( "Every string " + box, string );
+			assertTrue( "Ascending " + box, start >= lastStart );
+			lastStart = start;
+		}
+
+		// The fifth position of A minor pentatonic, frets 5 to 8.
+		LocationList fifth = null;
+		for ( LocationList box : boxes ) {
+			if ( box.contains( new Location( 0, 5 )) && box.contains( new Location( 0, 8 )))
+				fifth = box;
+		}
+		assertTrue( "Fifth position", null != fifth );
+		assertEquals( "Two notes per string", 12, fifth.size() );
+	}
+
+	@Test
+	public void testPositionsMatchRescan() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		PitchClassSet scale = PitchClassSet.fromFormula( MAJOR );
+		FretboardIndex index = standard.getIndex();
+		for ( int value = 0; value < PitchClassSet.PITCH_CLASSES; value++ ) {
+			int set = scale.transpose( value ).getBits();
+			List<LocationList> boxes = ScaleBoxes.getPositions( index, set, ScaleBoxes.DEFAULT_WIDTH );
+			// Rescan every window.
+			int count = 0;
+			String last = null;
+			for ( int start = 0; start + ScaleBoxes.DEFAULT_WIDTH <= standard.getMaxFret(); start++ ) {
+				LocationList window = new LocationList();
+				boolean covered = true;
+				for ( int s = 0; s < standard.getStringCount(); s++ ) {
+					boolean found = false;
+					for ( int fret = start; fret < start + ScaleBoxes.DEFAULT_WIDTH; fret++ ) {
+						if ( ScaleBoxes.inScale( index, set, s, fret )) {
+							window.add( new Location( s, fret ));
+							found = true;
+						}
+					}
+					covered &= found;
+				}
+				if ( covered && !window.toString().equals( last )) {
+					assertEquals( "Window " + start, window, boxes.get( count++ ));
+					last = window.toString();
+				}
+			}
+			assertEquals( "Box count", count, boxes.size() );
+		}
+	}
+
+	@Test
+	public void testNotesPerString() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		PitchClassSet scale = PitchClassSet.fromFormula( MAJOR );
+		Note root = new Note( 2, Note.Name.G.getValue() );
+		List<LocationList> boxes = new ScaleBoxes().getNotesPerString( standard, scale, root, 3, 5 );
+		assertTrue( "Boxes", boxes.size() > 0 );
+
+		FretboardIndex index = standard.getIndex();
+		int set = scale.transpose( root.getValue() ).getBits();
+		for ( LocationList box : boxes ) {
+			assertEquals( "Notes", 3 * standard.getStringCount(), box.size() );
+			int last = Integer.MIN_VALUE;
+			int i = 0;
+			for ( Location location : box ) {
+				assertEquals( "String", i++ / 3, location.getString() );
+				int pitch = index.getPitch( location.getString(), location.getFret() );
+				assertTrue( "In scale", PitchClassSet.valueOf( set ).contains( pitch ));
+				assertTrue( "Ascending", pitch > last );
+				if ( Integer.MIN_VALUE != last ) {
+					// No scale note skipped.
+					for ( int between = last + 1; between < pitch; between++ )
+						assertTrue( "Skipped " + between, !PitchClassSet.valueOf( set ).contains( between ));
+				}
+				last = pitch;
+			}
+		}
+		// G major from the third fret of the low E string.
+		assertEquals( "G position", "0-3,0-5,0-7,1-3,1-5,1-7,2-4,2-5,2-7,3-4,3-5,3-7,4-5,4-7,4-8,5-5,5-7,5-8",
+			boxes.get( 2 ).toString( "," ));
+	}
+
+	@Test
+	public void testCache() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		ScaleBoxes scaleBoxes = new ScaleBoxes();
+		String [] modes = { "1-2-3-4-5-6-7", "1-2-b3-4-5-6-b7", "1-b2-b3-4-5-b6-b7", "1-2-3-#4-5-6-7",
+			"1-2-3-4-5-6-b7", "1-2-b3-4-5-b6-b7", "1-b2-b3-4-b5-b6-b7" };
+		for ( int pass = 0; pass < 2; pass++ ) {
+			for ( String mode : modes ) {
+				PitchClassSet scale = PitchClassSet.fromFormula( mode );
+				for ( int value = 0; value < PitchClassSet.PITCH_CLASSES; value++ )
+					scaleBoxes.getPositions( standard, scale, new Note( value ), ScaleBoxes.DEFAULT_WIDTH );
+			}
+		}
+		// The modes of the major scale share its 12 transpositions.
+		assertEquals( "Misses", 12, scaleBoxes.getMissCount() );
+		assertEquals( "Hits", 2 * 84 - 12, scaleBoxes.getHitCount() );
+		assertEquals( "Size", 12, scaleBoxes.size() );
+
+		// Copies are returned.
+		PitchClassSet major = PitchClassSet.fromFormula( MAJOR );
+		List<LocationList> first = scaleBoxes.getPositions( standard, major, new Note( 0 ), ScaleBoxes.DEFAULT_WIDTH );
+		List<LocationList> second = scaleBoxes.getPositions( standard, major, new Note( 0 ), ScaleBoxes.DEFAULT_WIDTH );
+		assertEquals( "Equal", first, second );
+		assertNotSame( "Copy", first.get( 0 ), second.get( 0 ));
+		first.get( 0 ).clear();
+		assertEquals( "Unchanged", second, scaleBoxes.getPositions( standard, major, new Note( 0 ), ScaleBoxes.DEFAULT_WIDTH ));
+
+		// Another fretboard has its own boxes.
+		long misses = scaleBoxes.getMissCount();
+		Fretboard other = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		scaleBoxes.getPositions( other, major, new Note( 0 ), ScaleBoxes.DEFAULT_WIDTH );
+		assertEquals( "Other fretboard", misses + 1, scaleBoxes.getMissCount() );
+
+		scaleBoxes.clear();
+		assertEquals( "Cleared", 0, scaleBoxes.size() );
+
+		try {
+			scaleBoxes.getPositions( standard, major, new Note( 0 ), 0 );
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+		}
+	}
+}
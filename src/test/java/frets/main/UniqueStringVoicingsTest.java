@@ -0,0 +1,59 @@
+package frets.main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class UniqueStringVoicingsTest {
+	@Test
+	public void testSameAsFiltered() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		String [] formulas = { "R-3-5", "R-3-5-b7", "R-b3-5-b7-9" };
+		for ( String formula : formulas ) {
+			List<LocationList> variations = standard.getOctaveVariations( new NoteList( Note.GuitarA, formula ));
+			List<LocationList> expected = new LinkedList<LocationList>();
+			for ( LocationList permutation : Fretboard.getPermutations( variations )) {
+				if ( permutation.uniqueStrings() )
+					expected.add( permutation );
+			}
+			UniqueStringVoicings voicings = new UniqueStringVoicings( variations );
+			assertEquals( formula + " voicings", expected, Fretboard.getUniqueStringPermutations( variations ));
+			assertEquals( formula + " count", expected.size(), voicings.getCount() );
+			assertTrue( formula + " fewer", voicings.getCount() < Fretboard.getPermutationCount( variations ));
+
+			ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+			List<RankedLocationList> ranked = voicings.rank( ranker );
+			Iterator<RankedLocationList> it = ranked.iterator();
+			for ( RankedLocationList all : Fretboard.explodeAndRank( variations, ranker )) {
+				if ( all.getLocations().uniqueStrings() ) {
+					RankedLocationList unique = it.next();
+					assertEquals( formula + " ranked", all, unique );
+					assertArrayEquals( formula + " scores", all.getScores(), unique.getScores() );
+				}
+			}
+			assertTrue( formula + " ranked count", !it.hasNext() );
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals( "Null", 0, new UniqueStringVoicings( null ).getVoicings().size() );
+		List<LocationList> variations = new LinkedList<LocationList>();
+		variations.add( new LocationList( new Location( 1, 3 )));
+		variations.add( new LocationList() );
+		variations.add( new LocationList( new Location( 1, 5 )));
+		assertEquals( "Same string", 0, new UniqueStringVoicings( variations ).getCount() );
+		assertEquals( "Same string voicings", 0, Fretboard.getUniqueStringPermutations( variations ).size() );
+	}
+}
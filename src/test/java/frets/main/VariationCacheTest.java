@@ -0,0 +1,117 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.LinkedList;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VariationCacheTest {
+	@Test
+	public void testHitsAndCopies() {
+		VariationCache cache = new VariationCache( 4 );
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		NoteList notes = new NoteList( Note.GuitarD, "R-3-5" );
+		List<LocationList> expected = standard.getVariations( notes, 0, 12, Fretboard.OCTAVES );
+
+		List<LocationList> first = cache.getVariations( standard, notes, 0, 12, Fretboard.OCTAVES );
+		assertEquals( "Miss", expected, first );
+		first.get( 0 ).get( 0 ).setFret( 20 );
+		first.clear();
+
+		// An equal but separate fretboard and note list hit the same entry.
+		List<LocationList> second = cache.getVariations( Fretboard.getInstanceFromName( Fretboard.STANDARD ),
+			new NoteList( Note.GuitarD, "R-3-5" ), 0, 12, Fretboard.OCTAVES );
+		assertEquals( "Hit", expected, second );
+		assertNotSame( "Copy", second, cache.getVariations( standard, notes, 0, 12, Fretboard.OCTAVES ));
+		assertEquals( "Hits", 2, cache.getHitCount() );
+		assertEquals( "Misses", 1, cache.getMissCount() );
+
+		// Any part of the key changes the entry.
+		cache.getVariations( standard, notes, 0, 12, Fretboard.ENHARMONICS );
+		cache.getVariations( standard, notes, 0, 10, Fretboard.OCTAVES );
+		cache.getVariations( standard, new LocationList( "0-3" ), notes, 0, 12, Fretboard.OCTAVES );
+		assertEquals( "Misses", 4, cache.getMissCount() );
+		assertEquals( "Size", 4, cache.size() );
+
+		// Changing the fretboard changes its fingerprint.
+		String fingerprint = standard.getFingerprint();
+		assertEquals( "Fingerprint", "31:22,36:22,41:22,46:22,50:22,55:22", fingerprint );
+		standard.getString( 0 ).setOpenNote( Note.plus( Note.GuitarLowE, -2 ));
+		standard.resetIndex();
+		assertTrue( "Changed fingerprint", !fingerprint.equals( standard.getFingerprint() ));
+		assertEquals( "Changed fretboard", standard.getVariations( notes, 0, 12, Fretboard.OCTAVES ),
+			cache.getVariations( standard, notes, 0, 12, Fretboard.OCTAVES ));
+		assertEquals( "Misses", 5, cache.getMissCount() );
+		assertEquals( "Evictions", 1, cache.getEvictionCount() );
+		assertEquals( "Max size", 4, cache.size() );
+
+		// No variations are cached too.
+		long misses = cache.getMissCount();
+		assertNull( "No notes", cache.getVariations( standard, new NoteList(), 0, 12, Fretboard.OCTAVES ));
+		assertNull( "No notes again", cache.getVariations( standard, new NoteList(), 0, 12, Fretboard.OCTAVES ));
+		assertEquals( "No notes misses", misses + 1, cache.getMissCount() );
+		assertEquals( "No notes hits", 3, cache.getHitCount() );
+		cache.clear();
+		assertEquals( "Clear", 0, cache.size() );
+		assertEquals( "Clear hits", 0, cache.getHitCount() );
+	}
+
+	@Test
+	public void testLeastRecentlyUsed() {
+		VariationCache cache = new VariationCache( 2 );
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		NoteList a = new NoteList( Note.GuitarA, "R-3-5" );
+		NoteList d = new NoteList( Note.GuitarD, "R-3-5" );
+		NoteList g = new NoteList( Note.GuitarG, "R-3-5" );
+		cache.getVariations( standard, a, 0, 12, Fretboard.OCTAVES );
+		cache.getVariations( standard, d, 0, 12, Fretboard.OCTAVES );
+		cache.getVariations( standard, a, 0, 12, Fretboard.OCTAVES ); // a is most recent
+		cache.getVariations( standard, g, 0, 12, Fretboard.OCTAVES ); // evicts d
+		cache.getVariations( standard, a, 0, 12, Fretboard.OCTAVES );
+		assertEquals( "Hits", 2, cache.getHitCount() );
+		cache.getVariations( standard, d, 0, 12, Fretboard.OCTAVES );
+		assertEquals( "Misses", 4, cache.getMissCount() );
+		assertEquals( "Evictions", 2, cache.getEvictionCount() );
+	}
+
+	@Test
+	public void testThreads() throws Exception {
+		final VariationCache cache = new VariationCache( 8 );
+		final Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		final String [] formulas = { "R-3-5", "R-b3-5", "R-3-5-b7", "R-b3-5-b7" };
+		ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		List<Future<Boolean>> results = new LinkedList<Future<Boolean>>();
+		for ( int t = 0; t < 4; t++ ) {
+			results.add( executor.submit( new Callable<Boolean>() {
+				public Boolean call() {
+					for ( int i = 0; i < 200; i++ ) {
+						NoteList notes = new NoteList( Note.GuitarD, formulas[ i % formulas.length ] );
+						List<LocationList> expected = new Fretboard( standard.getStrings() ).getVariations( notes, 0, 12, Fretboard.OCTAVES );
+						if ( !expected.equals( cache.getVariations( standard, notes, 0, 12, Fretboard.OCTAVES )))
+							return false;
+					}
+					return true;
+				}
+			}));
+		}
+		for ( Future<Boolean> result : results )
+			assertTrue( "Thread", result.get() );
+		executor.shutdown();
+		assertEquals( "Lookups", 800, cache.getHitCount() + cache.getMissCount() );
+		assertEquals( "Size", formulas.length, cache.size() );
+	}
+}
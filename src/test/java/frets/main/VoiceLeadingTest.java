@@ -0,0 +1,128 @@
+package frets.main;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoiceLeadingTest {
+	@Test
+	public void testTransitionCost() {
+		VoiceLeading leading = new VoiceLeading( 1, 2 );
+		LocationList c = new LocationList( "1-3,2-2,3-0,4-1,5-0" );
+		LocationList am = new LocationList( "1-0,2-2,3-2,4-1,5-0" );
+		assertEquals( "C to Am", 3 + 2, leading.getTransitionCost( c, am ));
+		assertEquals( "Same", 0, leading.getTransitionCost( c, c ));
+		// Adds string 0, drops string 5.
+		LocationList g = new LocationList( "0-3,1-2,2-0,3-0,4-0" );
+		assertEquals( "C to G", 1 + 2 + 0 + 1 + 2 * 2, leading.getTransitionCost( c, g ));
+		assertEquals( "Symmetric", leading.getTransitionCost( g, c ), leading.getTransitionCost( c, g ));
+		assertEquals( "Weighted", 2 * ( 3 + 2 ), new VoiceLeading( 2, 2 ).getTransitionCost( c, am ));
+	}
+
+	@Test
+	public void testSameAsBruteForce() {
+		Random random = new Random( 19 );
+		VoiceLeading leading = new VoiceLeading( 1, 3 );
+		for ( int trial = 0; trial < 20; trial++ ) {
+			List<List<RankedLocationList>> candidates = new LinkedList<List<RankedLocationList>>();
+			int chords = 1 + random.nextInt( 5 );
+			for ( int chord = 0; chord < chords; chord++ ) {
+				List<RankedLocationList> voicings = new LinkedList<RankedLocationList>();
+				int k = 1 + random.nextInt( 4 );
+				for ( int v = 0; v < k; v++ ) {
+					LocationList voicing = new LocationList();
+					for ( int s = 0; s < 6; s++ ) {
+						if ( random.nextInt( 4 ) > 0 )
+							voicing.add( new Location( s, random.nextInt( 12 )));
+					}
+					voicings.add( new RankedLocationList( voicing, v, random.nextInt( 20 )));
+				}
+				candidates.add( voicings );
+			}
+			int [] path = leading.getPath( candidates );
+			long [] best = { Long.MAX_VALUE };
+			int [] bestPath = new int[ chords ];
+			bruteForce( leading, candidates, 0, new int[ chords ], best, bestPath );
+			assertEquals( "Cost " + trial, best[ 0 ], leading.getLastCost() );
+			assertEquals( "Path cost " + trial, best[ 0 ], getCost( leading, candidates, path ));
+			assertArrayEquals( "Path " + trial, bestPath, path );
+		}
+	}
+
+	@Test
+	public void testLongProgression() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+		ProgressionBatch batch = new ProgressionBatch( standard, ranker, 10 );
+		int [] degrees = { 2, 7, 0, 9 };
+		String [] formulas = { "1-b3-5-b7", "1-3-5-b7", "1-3-5-7", "1-b3-5-b7" };
+		for ( int bar = 0; bar < 300; bar++ )
+			batch.add( Note.plus( Note.GuitarLowE, 5 * ( bar / 4 ) + degrees[ bar % 4 ] ), formulas[ bar % 4 ] );
+		List<ProgressionBatch.Result> results = batch.rank();
+
+		VoiceLeading leading = new VoiceLeading();
+		long start = System.nanoTime();
+		List<RankedLocationList> path = leading.planResults( results );
+		long nanos = System.nanoTime() - start;
+		assertEquals( "Length", 300, path.size() );
+		assertTrue( "Fast, nanos=" + nanos, nanos < 1000000000L );
+
+		// Never worse than taking the best ranked voicing of each chord.
+		List<List<RankedLocationList>> candidates = new LinkedList<List<RankedLocationList>>();
+		for ( ProgressionBatch.Result result : results )
+			candidates.add( result.getVoicings() );
+		assertTrue( "Better than greedy", leading.getLastCost() <= getCost( leading, candidates, new int[ 300 ] ));
+	}
+
+	@Test
+	public void testBadInput() {
+		assertEquals( "Empty", 0, new VoiceLeading().getPath( new LinkedList<List<RankedLocationList>>() ).length );
+		List<List<RankedLocationList>> candidates = new LinkedList<List<RankedLocationList>>();
+		candidates.add( new LinkedList<RankedLocationList>() );
+		try {
+			new VoiceLeading().getPath( candidates );
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+		}
+	}
+
+	protected static long getCost( VoiceLeading leading, List<List<RankedLocationList>> candidates, int [] path ) {
+		long cost = 0;
+		LocationList previous = null;
+		for ( int i = 0; i < path.length; i++ ) {
+			RankedLocationList voicing = candidates.get( i ).get( path[ i ] );
+			cost += voicing.getScore();
+			if ( null != previous )
+				cost += leading.getTransitionCost( previous, voicing.getLocations() );
+			previous = voicing.getLocations();
+		}
+		return cost;
+	}
+
+	/** Tries every path, keeping the first cheapest in index order. */
+	protected static void bruteForce( VoiceLeading leading, List<List<RankedLocationList>> candidates, int chordi, int [] path, long [] best, int [] bestPath ) {
+		if ( chordi == path.length ) {
+			long cost = getCost( leading, candidates, path );
+			if ( cost < best[ 0 ] ) {
+				best[ 0 ] = cost;
+				System.arraycopy( path, 0, bestPath, 0, path.length );
+			}
+			return;
+		}
+		for ( int c = 0; c < candidates.get( chordi ).size(); c++ ) {
+			path[ chordi ] = c;
+			bruteForce( leading, candidates, chordi + 1, path, best, bestPath );
+		}
+	}
+}
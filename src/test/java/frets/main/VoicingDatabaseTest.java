@@ -0,0 +1,151 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoicingDatabaseTest {
+	@Test
+	public void testBuildAndRead() throws IOException {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		Fretboard openG = Fretboard.getInstanceFromName( Fretboard.OPEN_G );
+		List<Formula> formulas = new LinkedList<Formula>();
+		formulas.add( new Formula( "maj", "Major", "1-3-5" ));
+		formulas.add( new Formula( "m7", "Minor 7th", "1-b3-5-b7" ));
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+		VoicingDatabase built = VoicingDatabase.build( Arrays.asList( standard, openG ), formulas, ranker, 5, RankTask.POOL );
+		assertEquals( "Entries", 2 * 2 * VoicingDatabase.ROOT_COUNT, built.getEntryCount() );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		built.write( bytes );
+		VoicingDatabase database = VoicingDatabase.read( new ByteArrayInputStream( bytes.toByteArray() ));
+		assertEquals( "Top n", 5, database.getTopN() );
+		assertEquals( "Fretboards", Fretboard.OPEN_G, database.getFretboardNames()[ 1 ] );
+
+		Note [] roots = { Note.A, Note.C, Note.Fs };
+		for ( Fretboard fretboard : Arrays.asList( standard, openG )) {
+			for ( Formula formula : formulas ) {
+				for ( Note root : roots ) {
+					List<LocationList> expected = VoicingDatabase.rank( fretboard, formula.getFormula(), root, ranker, 5 );
+					assertEquals( formula.getName() + " size", 5, expected.size() );
+					assertEquals( formula.getName() + " by formula", expected, database.getVoicings( fretboard, formula.getFormula(), root, ranker ));
+					assertEquals( formula.getName() + " by name", expected, database.getVoicings( fretboard, formula.getName(), root, ranker ));
+					assertEquals( formula.getName() + " top 3", expected.subList( 0, 3 ), database.topK( fretboard, formula.getName(), root, ranker, 3 ));
+				}
+			}
+		}
+		assertEquals( "Same as topKPruned", Fretboard.topKPruned( standard.getVariations( new NoteList( Note.plus( Note.GuitarLowE, 5 ), "1-3-5" ), 0, 13, Fretboard.OCTAVES ), ranker, 5 ),
+			database.getVoicings( standard, "maj", Note.A, ranker ));
+
+		// Not in the database.
+		assertNull( "Custom formula", database.getVoicings( standard, "1-4-5", Note.A, ranker ));
+		assertEquals( "Custom formula live", VoicingDatabase.rank( standard, "1-4-5", Note.A, ranker, 5 ), database.topK( standard, "1-4-5", Note.A, ranker, 5 ));
+		assertNull( "Other ranker", database.getVoicings( standard, "maj", Note.A, new ChordRank( 0, 15, 5, 10 )));
+		assertEquals( "More than top n", 8, database.topK( standard, "maj", Note.A, ranker, 8 ).size() );
+		Fretboard dropped = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		dropped.getString( 0 ).setOpenNote( Note.plus( Note.GuitarLowE, -2 ));
+		dropped.resetIndex();
+		assertNull( "Changed fretboard", database.getVoicings( dropped, "maj", Note.A, ranker ));
+	}
+
+	@Test
+	public void testMap() throws IOException {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		List<Formula> formulas = new LinkedList<Formula>();
+		formulas.add( new Formula( "7", "Dominant 7th", "1-3-5-b7" ));
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+		VoicingDatabase built = VoicingDatabase.build( Arrays.asList( standard ), formulas, ranker, 4, RankTask.POOL );
+		assertTrue( "Built in heap", !built.isMapped() );
+
+		File file = File.createTempFile( "voicings", ".db" );
+		file.deleteOnExit();
+		built.write( file.getPath() );
+		VoicingDatabase mapped = VoicingDatabase.map( file.getPath() );
+		assertTrue( "Mapped", mapped.isMapped() );
+		assertEquals( "Entries", built.getEntryCount(), mapped.getEntryCount() );
+		assertEquals( "Data size", built.getDataSize(), mapped.getDataSize() );
+		for ( int root = 0; root < VoicingDatabase.ROOT_COUNT; root++ ) {
+			List<LocationList> voicings = mapped.getVoicings( standard, "7", new Note( root ), ranker );
+			assertEquals( "Root " + root, built.getVoicings( standard, "7", new Note( root ), ranker ), voicings );
+			assertTrue( "Packed", voicings.get( 0 ) instanceof PackedLocationList );
+		}
+
+		// A mapped database writes the same image.
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		mapped.write( bytes );
+		assertEquals( "Image size", file.length(), bytes.size() );
+
+		// Truncated images are rejected.
+		byte [] truncated = Arrays.copyOf( bytes.toByteArray(), bytes.size() - 1 );
+		try {
+			VoicingDatabase.read( new ByteArrayInputStream( truncated ));
+			assertTrue( "Expected IOException", false );
+		} catch ( IOException e ) {
+		}
+	}
+
+	@Test
+	public void testFormulas() throws IOException {
+		List<Formula> chords = FormulaList.getFormulas( VoicingDatabase.CHORD_PROPS );
+		assertEquals( "First", "maj", chords.get( 0 ).getName() );
+		List<Formula> playable = VoicingDatabase.getPlayableFormulas( chords );
+		assertTrue( "Playable", playable.size() > 40 );
+		List<String> names = new LinkedList<String>();
+		for ( Formula formula : playable ) {
+			assertTrue( formula.getName(), PitchClassSet.getFormulaSemitones( formula.getFormula() ).length > 1 );
+			names.add( formula.getName() );
+		}
+		// Altered extensions and double flats are stored too.
+		for ( String name : new String [] { "7(b9)", "7(b5,b9)", "7(#5,b9)", "13(b9)", "11(b9)", "o7" } )
+			assertTrue( name, names.contains( name ));
+		assertEquals( "Unplayable", 0, VoicingDatabase.getPlayableFormulas( Arrays.asList( new Formula( "x", "x", "1-x7" ))).size() );
+	}
+
+	@Test
+	public void testAlteredFormulas() throws IOException {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		ChordRank ranker = new ChordRank( 0, 12, 5, 10 );
+		List<Formula> formulas = new LinkedList<Formula>();
+		formulas.add( new Formula( "7", "Dominant 7th", "1-3-5-b7" ));
+		VoicingDatabase database = VoicingDatabase.build( Arrays.asList( standard ), formulas, ranker, 3, RankTask.POOL );
+
+		// Not stored, served by a live search.
+		for ( String formula : new String [] { "1-3-5-b7-b9", "1-3-5-b7-#9" } ) {
+			List<LocationList> voicings = database.topK( standard, formula, Note.A, ranker, 3 );
+			assertEquals( formula, 3, voicings.size() );
+			assertEquals( formula + " rank", VoicingDatabase.rank( standard, formula, Note.A, ranker, 3 ), voicings );
+			PitchClassSet expected = PitchClassSet.fromFormula( formula ).transpose( Note.A.getValue() );
+			for ( LocationList voicing : voicings )
+				assertEquals( formula + " " + voicing, expected, PitchClassSet.fromNotes( voicing.getNoteList( standard )));
+		}
+	}
+
+	@Test
+	public void testBadInput() throws IOException {
+		try {
+			VoicingDatabase.read( new ByteArrayInputStream( new byte[ 8 ] ));
+			assertTrue( "Expected IOException", false );
+		} catch ( IOException e ) {
+		}
+		try {
+			VoicingDatabase.build( new LinkedList<Fretboard>(), new LinkedList<Formula>(), new ChordRank(), 0, RankTask.POOL );
+			assertTrue( "Expected IllegalArgumentException", false );
+		} catch ( IllegalArgumentException e ) {
+		}
+	}
+}
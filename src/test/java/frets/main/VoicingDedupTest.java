@@ -0,0 +1,70 @@
+package frets.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoicingDedupTest {
+	@Test
+	public void testSameAsCanonicalSet() {
+		Fretboard standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		// Doubled root, with octaves, repeats locations in different orders.
+		NoteList notes = new NoteList( Note.GuitarA, "R-3-5-R" );
+		List<LocationList> variations = standard.getOctaveVariations( notes );
+
+		List<LocationList> expected = new LinkedList<LocationList>();
+		Set<LocationList> seen = new HashSet<LocationList>();
+		for ( LocationList permutation : Fretboard.getPermutations( variations )) {
+			if ( seen.add( VoicingDedup.getCanonical( permutation )))
+				expected.add( permutation );
+		}
+		List<LocationList> distinct = Fretboard.getDistinctPermutations( variations );
+		assertEquals( "Distinct", expected, distinct );
+		assertTrue( "Fewer", distinct.size() < Fretboard.getPermutationCount( variations ));
+
+		// Ranked duplicates keep the lowest permutation number.
+		ChordRank ranker = new ChordRank();
+		List<RankedLocationList> ranked = VoicingDedup.getInstance( variations ).dedupRanked( Fretboard.explodeAndRank( variations, ranker ));
+		assertEquals( "Ranked count", distinct.size(), ranked.size() );
+		Set<LocationList> rankedSeen = new HashSet<LocationList>();
+		for ( RankedLocationList entry : ranked ) {
+			assertTrue( "Ranked distinct " + entry, rankedSeen.add( VoicingDedup.getCanonical( entry.getLocations() )));
+			assertEquals( "Ranked first " + entry, entry.getPermutation(),
+				Fretboard.getPermutationNumber( variations, distinct.get( distinct.indexOf( entry.getLocations() ))));
+		}
+	}
+
+	@Test
+	public void testKeys() {
+		VoicingDedup dedup = new VoicingDedup( 6, 25 );
+		LocationList a = new LocationList( "0-3,2-2,1-0" );
+		LocationList b = new LocationList( "1-0,0-3,2-2" );
+		assertEquals( "Same locations", dedup.getKey( a ), dedup.getKey( b ));
+		assertNotEquals( "Extra location", dedup.getKey( a ), dedup.getKey( new LocationList( "0-3,2-2,1-0,1-0" )));
+		assertNotEquals( "Fewer locations", dedup.getKey( a ), dedup.getKey( new LocationList( "0-3,2-2" )));
+		assertTrue( "Add", dedup.add( a ));
+		assertFalse( "Add same", dedup.add( b ));
+
+		// Too many locations to pack, or off the fretboard, still dedup.
+		LocationList many = new LocationList( "0-1,0-2,1-1,1-2,2-1,2-2,3-1,3-2,4-1" );
+		assertEquals( "No key", VoicingDedup.NO_KEY, dedup.getKey( many ));
+		assertTrue( "Add many", dedup.add( many ));
+		assertFalse( "Add many again", dedup.add( new LocationList( "4-1,0-2,0-1,1-1,1-2,2-1,2-2,3-1,3-2" )));
+		assertTrue( "Add off board", dedup.add( new LocationList( "0-30" )));
+		assertFalse( "Add off board again", dedup.add( new LocationList( "0-30" )));
+		assertEquals( "Size", 3, dedup.size() );
+	}
+}
@@ -0,0 +1,68 @@
+package frets.main;
+
+import static frets.main.Fretboard.OCTAVES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class VoicingSearchTest {
+	protected Fretboard standard;
+	protected Note lowF;
+
+	@Before
+	public void setup() {
+		standard = Fretboard.getInstanceFromName( Fretboard.STANDARD );
+		lowF = Note.plus( Note.GuitarLowE, Interval.half );
+	}
+
+	@Test
+	public void testSameAsTopK() {
+		String [] formulas = { "R-3-5", "R-b3-5-b7", "R-3-5-b7", "R-3-5-7-9" };
+		ChordRank [] rankers = { new ChordRank( 0, 5 ), new ChordRank( 0, 12, 5, 10 ), new ChordRank() };
+		for ( String formula : formulas ) {
+			List<LocationList> variations = standard.getVariations( new NoteList( lowF, formula ), OCTAVES );
+			for ( ChordRank ranker : rankers ) {
+				for ( int k : new int [] { 1, 10, 50 } ) {
+					List<RankedLocationList> expected = Fretboard.topKRanked( variations, ranker, k );
+					VoicingSearch search = new VoicingSearch( variations, ranker );
+					List<RankedLocationList> actual = search.topK( k );
+					assertEquals( formula + " top " + k, expected, actual );
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPrunes() {
+		List<LocationList> variations = standard.getVariations( new NoteList( lowF, "R-3-5-7-9" ), OCTAVES );
+		long count = Fretboard.getPermutationCount( variations );
+		VoicingSearch search = new VoicingSearch( variations, new ChordRank( 0, 12, 5, 10 ) );
+		assertTrue( "Prunable", search.isPrunable() );
+		List<RankedLocationList> best = search.topK( 10 );
+		assertEquals( "Best count", 10, best.size() );
+		assertTrue( "Pruned", search.getPruneCount() > 0 );
+		assertTrue( "Fewer leaves", search.getLeafCount() < count );
+		assertEquals( "Locations", Fretboard.topK( variations, new ChordRank( 0, 12, 5, 10 ), 10 ),
+			Fretboard.topKPruned( variations, new ChordRank( 0, 12, 5, 10 ), 10 ));
+	}
+
+	@Test
+	public void testNotPrunable() {
+		List<LocationList> variations = standard.getVariations( new NoteList( lowF, "R-3-5" ), OCTAVES );
+		ChordRank negative = new ChordRank( 0, 12, -1, 1 );
+		VoicingSearch search = new VoicingSearch( variations, negative );
+		assertFalse( "Negative penalty", search.isPrunable() );
+		assertEquals( "Falls back", Fretboard.topKRanked( variations, negative, 5 ), search.topK( 5 ));
+		assertEquals( "Null variations", 0, new VoicingSearch( null, negative ).topK( 5 ).size() );
+	}
+}
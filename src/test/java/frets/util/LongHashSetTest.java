@@ -0,0 +1,39 @@
+package frets.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests to validate this class.
+ *
+ * @author <a href="mailto:dan@danbecker.info">Dan Becker</a>
+ */
+public class LongHashSetTest {
+	@Test
+	public void testSameAsHashSet() {
+		LongHashSet set = new LongHashSet();
+		Set<Long> expected = new HashSet<Long>();
+		Random random = new Random( 12 );
+		for ( int i = 0; i < 20000; i++ ) {
+			// Small range, so many keys repeat. Include zero and negatives.
+			long key = random.nextInt( 8000 ) - 100;
+			if ( 0 == i % 3 ) key <<= 40;
+			assertEquals( "Add " + key, expected.add( key ), set.add( key ));
+		}
+		assertEquals( "Size", expected.size(), set.size() );
+		for ( long key = -200; key < 9000; key++ )
+			assertEquals( "Contains " + key, expected.contains( key ), set.contains( key ));
+		assertTrue( "Load", set.size() * 2 <= set.getCapacity() );
+
+		set.clear();
+		assertTrue( "Clear", set.isEmpty() );
+		assertFalse( "Clear zero", set.contains( 0L ));
+	}
+}